@@ -62,6 +62,31 @@ tasks.generateGrammarSource {
     arguments = arguments + listOf("-package", "com.angellane.juggle.parser")
 }
 
+// Juggle always searches java.base, so we ship a prebuilt index of the JDK's
+// exported classes.  It's generated by running JdkIndex on the toolchain JDK,
+// and is only used at runtime by that exact version of Java.
+val generateJdkIndex = tasks.register<JavaExec>("generateJdkIndex") {
+    group = "build"
+    description = "Generates an index of the classes in the JDK's exported packages"
+
+    val indexFile = layout.buildDirectory.file("generated/jdkIndex/jdk.idx")
+
+    classpath = sourceSets.main.get().output.classesDirs
+    mainClass.set("com.angellane.juggle.index.JdkIndex")
+    javaLauncher.set(javaToolchains.launcherFor(java.toolchain))
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(indexFile.get().asFile.path)
+    })
+    dependsOn(tasks.compileJava)
+    outputs.file(indexFile)
+}
+
+tasks.processResources {
+    from(generateJdkIndex) {
+        into("com/angellane/juggle/index")
+    }
+}
+
 tasks.jar {
     manifest {
         attributes["Main-Class"] = application.mainClass
@@ -0,0 +1,92 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Locale;
+import java.util.function.BiFunction;
+
+/**
+ * The ways of grouping matches when counting them.
+ * <p>
+ * Enumerands are functions from a match's candidate to the name of the group
+ * it's counted in.  Enumerand names are legal values for Juggle's --facet
+ * option.
+ */
+public enum Facet {
+    PACKAGE     ((j, c) -> c.packageName()),
+    CLASS       ((j, c) -> classOf(c).getName()),
+    MODULE      ((j, c) -> classOf(c).getModule().isNamed()
+                        ? classOf(c).getModule().getName()
+                        : "(unnamed)"),
+    JAR         ((j, c) -> j.getClassOrigins().locationOf(classOf(c))
+                        .orElse("(unknown)")),
+    MODIFIER    ((j, c) -> {
+                    int modifiers = modifiersOf(c);
+                    String access = c.accessibility().name().toLowerCase(Locale.ROOT);
+                    return modifiers == 0
+                            ? access
+                            : access + " " + Modifier.toString(modifiers);
+                });
+
+    private final BiFunction<Juggler, Candidate, String> groupFunction;
+
+    Facet(BiFunction<Juggler, Candidate, String> groupFunction) {
+        this.groupFunction = groupFunction;
+    }
+
+    String groupOf(Juggler j, Candidate c) {
+        return groupFunction.apply(j, c);
+    }
+
+    // Unlike otherModifiers(), don't mistake the varargs bit for transient,
+    // or the bridge bit for volatile
+    private static int modifiersOf(Candidate c) {
+        int mask;
+        int modifiers;
+        if (c instanceof MemberCandidate mc) {
+            Member m = mc.member();
+            mask = m instanceof Method ? Modifier.methodModifiers()
+                    : m instanceof Constructor ? Modifier.constructorModifiers()
+                    : Modifier.fieldModifiers();
+            modifiers = m.getModifiers();
+        }
+        else {
+            Class<?> t = ((TypeCandidate)c).clazz();
+            mask = t.isInterface() ? Modifier.interfaceModifiers()
+                    : Modifier.classModifiers();
+            modifiers = t.getModifiers();
+        }
+        return modifiers & mask
+                & ~(Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE);
+    }
+
+    // The class a type is, or that a member is declared in
+    private static Class<?> classOf(Candidate c) {
+        return c instanceof MemberCandidate mc
+                ? mc.member().getDeclaringClass()
+                : ((TypeCandidate)c).clazz();
+    }
+}
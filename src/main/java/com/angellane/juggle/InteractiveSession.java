@@ -0,0 +1,119 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.sink.Sink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Successive searches of the same classes, for --interactive.
+ * <p>
+ * Classes are loaded once, when the session starts.  The matches of each
+ * search are kept, and when the next query refines the one before --
+ * adding a modifier or an annotation, say, or lengthening a name -- only
+ * those matches are searched again, rather than every class.
+ */
+public class InteractiveSession {
+    public static final String PROMPT = "juggle> ";
+
+    private final Juggler juggler;
+
+    private Query<?> previousQuery = null;
+    private List<Match<?, ?>> previousMatches = null;
+    private boolean refined = false;
+
+    /**
+     * @param juggler a juggler whose sources have been configured
+     */
+    public InteractiveSession(Juggler juggler) {
+        this.juggler = juggler;
+        juggler.preloadClasses();
+    }
+
+    /**
+     * @param query the query to search for
+     * @return its matches, in output order
+     */
+    public List<Match<?, ?>> search(Query<?> query) {
+        juggler.setQuery(query);
+
+        refined = previousMatches != null && query.refines(previousQuery);
+        List<Match<?, ?>> matches =
+                (refined ? juggler.refine(previousMatches) : juggler.matches())
+                        .toList();
+
+        // A search that timed out may have missed matches of the next query
+        previousQuery = query;
+        previousMatches = juggler.isTimedOut() ? null : matches;
+        return matches;
+    }
+
+    /**
+     * @return whether the last search only looked at the matches of the
+     * one before it
+     */
+    public boolean wasRefined() {
+        return refined;
+    }
+
+    /**
+     * Reads declarations, one per line, until the end of the input, and
+     * sends the matches of each to the sink.  A declaration that can't be
+     * parsed is reported, and the session carries on.
+     *
+     * @param in where to read declarations
+     * @param prompt where to prompt for each one, or null not to
+     * @param parser turns a declaration into a query
+     * @param sink where to send matches
+     * @param afterSearch called after each search's matches have been sent
+     * @throws IOException if the input can't be read
+     */
+    public void run(BufferedReader in, PrintStream prompt,
+                    Function<String, Query<?>> parser, Sink sink,
+                    Runnable afterSearch)
+            throws IOException {
+        for (;;) {
+            if (prompt != null) {
+                prompt.print(PROMPT);
+                prompt.flush();
+            }
+
+            String line = in.readLine();
+            if (line == null)
+                break;
+            else if (line.isBlank())
+                continue;
+
+            try {
+                search(parser.apply(line.strip())).forEach(sink::acceptMatch);
+                sink.flush();
+                afterSearch.run();
+            }
+            catch (JuggleError ex) {
+                juggler.error(ex.getLocalizedMessage());
+            }
+        }
+    }
+}
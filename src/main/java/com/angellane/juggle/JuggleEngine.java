@@ -0,0 +1,223 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.index.TypeHierarchy;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.processor.PermuteParams;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.source.Module;
+import com.angellane.juggle.util.ResolvingURLClassLoader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * Juggle for embedding: classes are loaded once, then searched by any number
+ * of queries, from any number of threads.
+ * <p>
+ * Once loaded an engine never changes.  Each search gets a Juggler of its
+ * own, configured from its SearchOptions, which shares the engine's class
+ * loader, classes and type hierarchy but nothing else; so the types a query
+ * names, its imports and its sort order never affect another search.
+ */
+public final class JuggleEngine implements AutoCloseable {
+    private final ResolvingURLClassLoader loader;
+    private final List<Class<?>> classes;
+    private final TypeHierarchy typeHierarchy;
+
+    private JuggleEngine(ResolvingURLClassLoader loader,
+                         List<Class<?>> classes) {
+        this.loader = loader;
+        this.classes = classes;
+        this.typeHierarchy = new TypeHierarchy(classes);
+    }
+
+    /**
+     * Configures the sources of a juggler and loads all of their classes.
+     * The juggler isn't used again, and shouldn't be watching.
+     *
+     * @param juggler a juggler whose sources have been added
+     * @return an engine that searches the juggler's classes
+     */
+    public static JuggleEngine load(Juggler juggler) {
+        juggler.configureAllSources();
+        return new JuggleEngine(juggler.loader,
+                List.copyOf(juggler.getClassesToSearch()));
+    }
+
+    /**
+     * Loads the classes in java.base and the given modules and class path,
+     * as the command-line options -m, -p and -cp would.
+     *
+     * @param classPath   JARs and directories to search
+     * @param modulePath  where to find modules
+     * @param moduleNames modules to search
+     * @return an engine that searches the classes
+     */
+    public static JuggleEngine load(List<String> classPath,
+                                    List<String> modulePath,
+                                    List<String> moduleNames) {
+        Juggler juggler = new Juggler();
+        juggler.setParallel(true);
+
+        modulePath.forEach(juggler::addModulePath);
+        moduleNames.forEach(m -> juggler.addSource(
+                new Module(juggler.getModulePaths(), m)));
+        classPath.forEach(juggler::addClassPathEntry);
+
+        return load(juggler);
+    }
+
+    /**
+     * @return the classes that are searched
+     */
+    public List<Class<?>> classes() {
+        return classes;
+    }
+
+    public Stream<Match<?, ?>> search(String declaration) {
+        return search(declaration, SearchOptions.DEFAULTS);
+    }
+
+    /**
+     * Searches for a declaration, written as it would be on the command line.
+     *
+     * @param declaration the declaration to search for
+     * @param options how to search
+     * @return the matches, found as the stream is consumed
+     * @throws JuggleError if the declaration can't be parsed, or names a
+     * type that can't be found
+     */
+    public Stream<Match<?, ?>> search(String declaration,
+                                      SearchOptions options) {
+        Juggler juggler = jugglerFor(options);
+        juggler.parseQuery(declaration);
+        return juggler.matches();
+    }
+
+    /**
+     * Searches for a query that's been built rather than parsed.  The query
+     * isn't modified, so one query can be used by concurrent searches.
+     *
+     * @param query the query to search for
+     * @param options how to search
+     * @return the matches, found as the stream is consumed
+     */
+    public Stream<Match<?, ?>> search(Query<?> query, SearchOptions options) {
+        Juggler juggler = jugglerFor(options);
+        juggler.setQuery(query);
+        return juggler.matches();
+    }
+
+    /**
+     * Searches, and collects the matches.  Unlike search(), this tells
+     * whether the search ran out of time (see SearchOptions.timeout()), and
+     * so whether the matches are only the best of those found in time.
+     *
+     * @param query the query to search for
+     * @param options how to search
+     * @return the matches, and how much of the search was done
+     */
+    public SearchResult searchAll(Query<?> query, SearchOptions options) {
+        Juggler juggler = jugglerFor(options);
+        juggler.setQuery(query);
+
+        List<Match<?, ?>> matches = juggler.matches().toList();
+        return new SearchResult(matches, juggler.isTimedOut(),
+                juggler.getClassesSearched(), classes.size());
+    }
+
+    /**
+     * Like search(), but matches are pushed to subscribers, each of which
+     * gets a search of its own on a thread of its own.
+     *
+     * @param declaration the declaration to search for
+     * @param options how to search
+     * @return a publisher of the matches
+     * @throws JuggleError if the declaration can't be parsed, or names a
+     * type that can't be found
+     */
+    public Flow.Publisher<Match<?, ?>> publish(String declaration,
+                                               SearchOptions options) {
+        return publish(jugglerFor(options).parseQuery(declaration), options);
+    }
+
+    public Flow.Publisher<Match<?, ?>> publish(Query<?> query,
+                                               SearchOptions options) {
+        return publish(query, options, JuggleEngine::startSearchThread);
+    }
+
+    /**
+     * Like search(), but matches are pushed to subscribers.  Matches are
+     * only looked for as subscribers request them, and cancelling a
+     * subscription stops its search.
+     *
+     * @param query the query to search for
+     * @param options how to search
+     * @param executor runs each subscriber's search, which blocks while
+     *                 the subscriber has no outstanding demand
+     * @return a publisher of the matches
+     */
+    public Flow.Publisher<Match<?, ?>> publish(Query<?> query,
+                                               SearchOptions options,
+                                               Executor executor) {
+        return new MatchPublisher(() -> {
+            Juggler juggler = jugglerFor(options);
+            juggler.setQuery(query);
+            return juggler;
+        }, executor);
+    }
+
+    private static void startSearchThread(Runnable search) {
+        Thread t = new Thread(search, "juggle-search");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private Juggler jugglerFor(SearchOptions options) {
+        Juggler juggler = new Juggler(loader, classes, typeHierarchy);
+
+        options.importedPackageNames().forEach(juggler::addImportedPackageName);
+        options.sortCriteria().forEach(juggler::addSortCriteria);
+        juggler.setConversions(options.conversions());
+        juggler.setStreaming(options.streaming());
+        juggler.setParallel(options.parallel());
+        juggler.setTimeout(options.timeout());
+
+        if (options.permuteParams())
+            juggler.prependMemberCandidateProcessor(new PermuteParams());
+
+        juggler.filterUnutterableClasses();
+        return juggler;
+    }
+
+    /**
+     * Closes the engine's class loader.  Classes that have already been
+     * loaded still work, but searches may no longer find related types.
+     *
+     * @throws IOException if a JAR can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        loader.close();
+    }
+}
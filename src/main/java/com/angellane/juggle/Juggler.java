@@ -22,21 +22,35 @@ import com.angellane.juggle.candidate.MemberCandidate;
 import com.angellane.juggle.candidate.TypeCandidate;
 import com.angellane.juggle.comparator.MultiComparator;
 import com.angellane.juggle.formatter.Formatter;
+import com.angellane.juggle.formatter.PlaintextFormatter;
+import com.angellane.juggle.index.TypeHierarchy;
+import com.angellane.juggle.match.Accessibility;
 import com.angellane.juggle.match.Match;
 import com.angellane.juggle.match.TypeMatcher;
 import com.angellane.juggle.query.*;
 import com.angellane.juggle.sink.Sink;
+import com.angellane.juggle.source.ClassOrigins;
+import com.angellane.juggle.source.FatJarSource;
+import com.angellane.juggle.source.FileSource;
 import com.angellane.juggle.source.Module;
+import com.angellane.juggle.util.BucketSort;
 import com.angellane.juggle.util.ResolvingURLClassLoader;
 import com.angellane.juggle.source.Source;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.module.FindException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Juggler {
     private final List<String> importedPackageNames = new ArrayList<>();
@@ -49,6 +63,24 @@ public class Juggler {
         importedPackageNames.add(Object.class.getPackageName());    // "java.lang" is always imported
     }
 
+    /**
+     * Makes a juggler for a single search of classes that have already been
+     * loaded, as JuggleEngine does for each query.  It has no sources of its
+     * own, and only reads the loader, classes and hierarchy it's given, so
+     * any number of them can share those safely.
+     *
+     * @param loader the loader the classes came from, for resolving query types
+     * @param classes the classes to search
+     * @param typeHierarchy the hierarchy of those classes
+     */
+    Juggler(ResolvingURLClassLoader loader, List<Class<?>> classes,
+            TypeHierarchy typeHierarchy) {
+        this.loader = loader;
+        this.loadedClasses = classes;
+        this.typeHierarchy = typeHierarchy;
+        importedPackageNames.add(Object.class.getPackageName());
+    }
+
 
     // Modules ========================================================================================================
 
@@ -69,29 +101,303 @@ public class Juggler {
     public void addSource(Source source) { sources.add(source); source.setJuggler(this); }
     public List<Source> getSources() { return sources; }
 
+    /**
+     * Adds a JAR, directory of class files or fat JAR to search.
+     *
+     * @param path where the classes are
+     */
+    public void addClassPathEntry(String path) {
+        addSource(FatJarSource.isFatJar(Path.of(path))
+                ? new FatJarSource(path)
+                : new FileSource(path));
+    }
+
     ResolvingURLClassLoader loader = new ResolvingURLClassLoader(new URL[] {});
 
+    // In watch mode directory sources get a loader of their own, beneath the
+    // one for all other sources, so that it can be replaced when they change
+    private ResolvingURLClassLoader stableLoader = null;
+    private URL[] directoryURLs = {};
+
     public void configureAllSources() {
-        try {
-            URL[] urls = getSources().stream()
-                    .map(Source::configure)
-                    .flatMap(List::stream)
-                    .toArray(URL[]::new);
+        closeLoaders();
 
-            this.loader = new ResolvingURLClassLoader(urls);
+        try {
+            if (!watching) {
+                URL[] urls = getSources().stream()
+                        .map(Source::configure)
+                        .flatMap(List::stream)
+                        .toArray(URL[]::new);
+
+                this.loader = new ResolvingURLClassLoader(urls);
+                addModuleReaders(getSources(), loader);
+            }
+            else {
+                List<FileSource> directories = getDirectorySources();
+
+                URL[] stableURLs = getSources().stream()
+                        .filter(Predicate.not(directories::contains))
+                        .map(Source::configure)
+                        .flatMap(List::stream)
+                        .toArray(URL[]::new);
+                this.directoryURLs = directories.stream()
+                        .map(Source::configure)
+                        .flatMap(List::stream)
+                        .toArray(URL[]::new);
+
+                this.stableLoader = new ResolvingURLClassLoader(stableURLs);
+                this.loader = new ResolvingURLClassLoader(directoryURLs, stableLoader);
+                addModuleReaders(getSources(), stableLoader);
+
+                directories.forEach(FileSource::trackChanges);
+            }
         }
         catch (FindException ex) {
             throw new JuggleError(ex.getLocalizedMessage());
         }
     }
 
+    // Closing a loader closes its module readers too, which would otherwise
+    // hold their JMOD files open
+    private void closeLoaders() {
+        try {
+            loader.close();
+            if (stableLoader != null)
+                stableLoader.close();
+        }
+        catch (IOException ignored) {}
+    }
 
-    public Collection<Class<?>> getClassesToSearch() {
+    private static void addModuleReaders(List<Source> sources,
+                                         ResolvingURLClassLoader loader) {
+        sources.stream()
+                .map(Source::moduleReaders)
+                .flatMap(List::stream)
+                .forEach(loader::addModuleReader);
+    }
+
+    /**
+     * @return the sources that are directories of class files, and so might
+     * change while we're watching them
+     */
+    public List<FileSource> getDirectorySources() {
         return getSources().stream()
-                .flatMap(Source::classStream)
+                .filter(FileSource.class::isInstance)
+                .map(FileSource.class::cast)
+                .filter(FileSource::isDirectory)
                 .toList();
     }
 
+
+    public Collection<Class<?>> getClassesToSearch() {
+        return classesToSearchStream().toList();
+    }
+
+    // In watch mode, classes loaded from each source are kept between
+    // searches until the source changes
+    private final Map<Source, List<Class<?>>> classCache = new HashMap<>();
+
+    // Set instead of sources when searching classes loaded by a JuggleEngine
+    private List<Class<?>> loadedClasses = null;
+
+    /**
+     * Like getClassesToSearch(), but classes are loaded as the stream is
+     * consumed rather than all up-front.
+     *
+     * @return a lazy stream of the classes in all sources
+     */
+    public Stream<Class<?>> classesToSearchStream() {
+        if (loadedClasses != null)
+            return parallel ? loadedClasses.parallelStream() : loadedClasses.stream();
+        else if (!watching)
+            return classesIn(getSources(), false);
+        else
+            return getSources().stream()
+                    .flatMap(src -> classCache.computeIfAbsent(src,
+                            s -> classesIn(List.of(s), false).toList()).stream());
+    }
+
+    /**
+     * Loads every class in the sources now, and searches just those from
+     * then on, so that a long-lived session only enumerates and loads its
+     * sources once.  Must be called after configureAllSources().
+     */
+    public void preloadClasses() {
+        loadedClasses = List.copyOf(getClassesToSearch());
+    }
+
+    /**
+     * Like classesToSearchStream(), but ends once the search is stopped.
+     * Where classes are loaded as the stream is consumed, the rest aren't
+     * loaded at all.
+     */
+    private Stream<Class<?>> classesToSearchUntilStopped() {
+        if (loadedClasses == null && !watching)
+            return classesIn(getSources(), true);
+        else
+            // Classes kept between searches mustn't be cut short
+            return untilStopped(classesToSearchStream());
+    }
+
+    /**
+     * @return how many classes a search would look at, without loading any
+     */
+    public long countClassesToSearch() {
+        if (loadedClasses != null)
+            return loadedClasses.size();
+        else
+            return getSources().stream()
+                    .flatMap(src -> src.classNames().filter(src::isSearchable))
+                    .filter(this::inShard)
+                    .distinct()
+                    .count();
+    }
+
+    private Stream<Class<?>> classesIn(List<Source> sources, boolean stoppable) {
+        // A name that's in more than one source (a library that's on the
+        // classpath twice, or at two versions) always loads the same class,
+        // the first one, so there's no point searching it again.  Where the
+        // other copies are is left to ClassOrigins.
+        Set<String> seen = new HashSet<>();
+
+        if (!parallel)
+            return sources.stream()
+                    .flatMap(src -> untilStopped(stoppable, src.classNames()
+                                    .filter(src::isSearchable)
+                                    .filter(this::inShard)
+                                    .filter(seen::add))
+                            .map(src::loadClass)
+                            .flatMap(Optional::stream));
+        else
+            // List every source's class names first (that's cheap), so that
+            // loading -- and everything downstream -- can be spread across
+            // threads even when most classes come from one or two sources.
+            // The list keeps enumeration order, so sorted output is the same.
+            return untilStopped(stoppable, sources.stream()
+                    .flatMap(src -> src.classNames()
+                            .filter(src::isSearchable)
+                            .filter(this::inShard)
+                            .filter(seen::add)
+                            .map(name -> Map.entry(src, name)))
+                    .toList()
+                    .parallelStream())
+                    .map(e -> e.getKey().loadClass(e.getValue()))
+                    .flatMap(Optional::stream);
+    }
+
+    private ClassOrigins classOrigins = null;
+
+    /**
+     * @return where the copies of each searched class are, according to
+     * the current class loader
+     */
+    public ClassOrigins getClassOrigins() {
+        if (classOrigins == null)
+            classOrigins = new ClassOrigins(loader);
+        return classOrigins;
+    }
+
+    private boolean parallel = false;
+
+    /**
+     * In parallel mode classes are loaded, and candidates built and scored,
+     * on multiple threads.  All sources share the one (parallel capable)
+     * class loader since classes in one source may well depend on those in
+     * another.
+     *
+     * @param parallel whether to scan sources in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    private int shardIndex = 0;
+    private int shardCount = 1;
+
+    /**
+     * Restricts the search to one shard of the classes in the sources.
+     * Classes are dealt to shards by a hash of their name, so each shard
+     * gets a similar share however the classes are spread across sources.
+     * All sources are still configured, so that classes in this shard can
+     * be resolved against those in other shards.
+     *
+     * @param index which shard to search, from 0 to count-1
+     * @param count how many shards the classes are split into
+     */
+    public void setShard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count)
+            throw new JuggleError("Bad shard: %d/%d".formatted(index, count));
+
+        this.shardIndex = index;
+        this.shardCount = count;
+    }
+
+    private boolean inShard(String className) {
+        // String.hashCode() is specified, so every JVM agrees on the shards
+        return shardCount == 1
+                || Math.floorMod(className.hashCode(), shardCount) == shardIndex;
+    }
+
+    private boolean watching = false;
+
+    /**
+     * In watch mode, directory sources are tracked so that
+     * refreshDirectorySources() can tell when their classes change, and
+     * classes from all other sources are kept between searches.
+     * <p>
+     * Must be set before configureAllSources() is called.
+     *
+     * @param watching whether to watch directory sources for changes
+     */
+    public void setWatching(boolean watching) {
+        this.watching = watching;
+    }
+    public boolean isWatching() { return watching; }
+
+    /**
+     * Checks the class files in directory sources for changes.  If any have
+     * changed, classes from directory sources will be loaded afresh (by a new
+     * class loader) when next searched; those from other sources are kept.
+     * Types resolved for queries are forgotten too, so queries should be
+     * parsed again.
+     *
+     * @return names of the classes that have changed
+     */
+    public Set<String> refreshDirectorySources() {
+        List<FileSource> directories = getDirectorySources();
+
+        Set<String> changed = directories.stream()
+                .flatMap(fs -> fs.changedClassNames().stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        if (!changed.isEmpty()) {
+            try {
+                loader.close();
+            }
+            catch (IOException ignored) {}
+
+            loader = new ResolvingURLClassLoader(directoryURLs, stableLoader);
+            directories.forEach(classCache::remove);
+            classOrigins = null;
+            typeHierarchy = null;
+            typeCache.keySet().retainAll(primitiveMap.keySet());
+        }
+
+        return changed;
+    }
+
+    private TypeHierarchy typeHierarchy = null;
+
+    /**
+     * @return a reverse index of the hierarchy of the classes being searched,
+     * built from the sources on first use
+     */
+    public TypeHierarchy getTypeHierarchy() {
+        if (typeHierarchy == null)
+            typeHierarchy = new TypeHierarchy(getClassesToSearch());
+        return typeHierarchy;
+    }
+
     public void addImportedPackageName(String name) {
         // java.lang is always present and must remain the last element
         importedPackageNames.add(importedPackageNames.size()-1, name);
@@ -148,6 +454,9 @@ public class Juggler {
                     )
                     .collect(Collectors.toMap(Class::getTypeName, Function.identity()));
 
+    // Types that have been looked up, by name
+    private final Map<String, Class<?>> typeCache = new HashMap<>(primitiveMap);
+
     public Class<?> classForTypename(String typename) {
         final String ARRAY_SUFFIX = "[]";
 
@@ -159,7 +468,7 @@ public class Juggler {
 
         // Start with the base type
         Juggler juggler = this;
-        Class<?> ret = primitiveMap.computeIfAbsent(baseTypename,
+        Class<?> ret = typeCache.computeIfAbsent(baseTypename,
                 name -> {
                     // Actually now want to try typename plainly, then prefixed by each import in turn
                     // Default to Object if we can't find any match
@@ -186,20 +495,32 @@ public class Juggler {
     }
 
     public Stream<TypeCandidate> candidateTypeStream() {
-        return getClassesToSearch().stream()
+        // Let the query prune the hierarchy for extends/implements/super
+        Stream<Class<?>> classes = typeQuery == null
+                || !typeQuery.constrainsHierarchy()
+                ? classesToSearchUntilStopped()
+                : untilStopped(typeQuery.candidateClasses(getTypeHierarchy()));
+
+        return classes
+                .peek(c -> classesSearched.increment())
                 .map(TypeCandidate::candidateForType);
     }
 
     public Stream<MemberCandidate> candidateMemberStream() {
-        return getClassesToSearch().stream()
+        // Candidates reflect on most of their attributes lazily, but need to
+        // be told up-front whether to bother with parameter annotations
+        final boolean paramAnnotations = memberQuery.needsParamAnnotations();
+
+        return classesToSearchUntilStopped()
+                .peek(c -> classesSearched.increment())
                 .flatMap(c -> Stream.of(
                                   Arrays.stream(c.getDeclaredFields())
                                         .map(MemberCandidate::membersFromField)
                                         .flatMap(List::stream)
                                 , Arrays.stream(c.getDeclaredConstructors())
-                                        .map(MemberCandidate::memberFromConstructor)
+                                        .map(ctor -> MemberCandidate.memberFromConstructor(ctor, paramAnnotations))
                                 , Arrays.stream(c.getDeclaredMethods())
-                                        .map(MemberCandidate::memberFromMethod)
+                                        .map(m -> MemberCandidate.memberFromMethod(m, paramAnnotations))
                                 )
                         .flatMap(Function.identity())
                 );
@@ -256,10 +577,22 @@ public class Juggler {
         addMemberMatchProcessor(makeFilter(pred));
     }
 
+    /**
+     * Hides anonymous and local classes, and their members.  They're
+     * unutterable, so could never be used as the result of a search.
+     */
+    public void filterUnutterableClasses() {
+        addMemberFilter(m -> !m.member().getDeclaringClass().isAnonymousClass());
+        addMemberFilter(m -> !m.member().getDeclaringClass().isLocalClass());
+
+        addTypeFilter(t -> !t.clazz().isAnonymousClass());
+        addTypeFilter(t -> !t.clazz().isLocalClass());
+    }
+
 
     // Sorting ========================================================================================================
 
-    public List<SortCriteria> sortCriteria                  = new ArrayList<>();
+    private final List<SortCriteria> sortCriteria           = new ArrayList<>();
     public void addSortCriteria(SortCriteria sort)          { sortCriteria.add(sort); }
     public List<SortCriteria> getSortCriteria() {
         // Return default criteria of none were set.
@@ -272,32 +605,166 @@ public class Juggler {
                 );
     }
 
-    Comparator<Match<TypeCandidate,Query<TypeCandidate>>> getTypeComparator() {
-        return MultiComparator.of(getSortCriteria().stream()
+    Comparator<Match<TypeCandidate,Query<TypeCandidate>>>
+    getTypeComparator(List<SortCriteria> criteria) {
+        return MultiComparator.of(criteria.stream()
                 .map(g -> g.getTypeComparator(this))
                 .toList());
     }
-    Comparator<Match<MemberCandidate,Query<MemberCandidate>>> getMemberComparator() {
-        return MultiComparator.of(getSortCriteria().stream()
+    Comparator<Match<MemberCandidate,Query<MemberCandidate>>>
+    getMemberComparator(List<SortCriteria> criteria) {
+        return MultiComparator.of(criteria.stream()
                 .map(g -> g.getMemberComparator(this))
                 .toList());
     }
 
+    /**
+     * Orders matches according to the sort criteria.
+     * <p>
+     * Scores are small integers (sums of a few small costs from
+     * TypeMatcher), so when score is the primary criterion -- as it is by
+     * default -- we bucket matches by score in a single pass, and only run
+     * the remaining comparators within each bucket.
+     *
+     * @param matches the matches to sort
+     * @param comparatorFor makes a comparator from a list of sort criteria
+     * @return the sorted matches
+     */
+    private <C extends Candidate>
+    Stream<Match<C, Query<C>>> sorted(
+            Stream<Match<C, Query<C>>> matches,
+            Function<List<SortCriteria>, Comparator<Match<C, Query<C>>>>
+                    comparatorFor
+    ) {
+        List<SortCriteria> criteria = getSortCriteria();
+
+        if (criteria.get(0) == SortCriteria.SCORE)
+            return BucketSort.sorted(matches, Match::score,
+                    comparatorFor.apply(criteria.subList(1, criteria.size())));
+        else
+            return matches.sorted(comparatorFor.apply(criteria));
+    }
+
+
+    // Streaming ======================================================================================================
+
+    private boolean streaming = false;
+
+    /**
+     * In streaming mode matches are sent to the sink as soon as they've been
+     * scored, rather than after all candidates have been scored and sorted.
+     * Results still have duplicates removed, but arrive in the order the
+     * classes were enumerated.
+     *
+     * @param streaming whether to stream unsorted results
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    public boolean isStreaming() { return streaming; }
+
+
+    // Stopping =======================================================================================================
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Stops the search that's under way.  Classes and candidates that haven't
+     * been looked at yet are skipped, so the match stream soon ends, though
+     * matches already found may still be returned.  Safe to call from any
+     * thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    public boolean isCancelled() { return cancelled; }
+
+    private Duration timeout = null;
+    private long deadline;                      // System.nanoTime() value
+    private volatile boolean timedOut = false;
+    private final LongAdder classesSearched = new LongAdder();
+
+    /**
+     * Limits how long each search may take.  A search that runs out of time
+     * stops looking at classes and candidates, just as if it had been
+     * cancelled, and returns the matches that it found in time: sorted, unless
+     * streaming.
+     *
+     * @param timeout how long a search may take, or null for no limit
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return whether the last search ran out of time, so that its results
+     * are partial
+     */
+    public boolean isTimedOut() { return timedOut; }
+
+    /**
+     * @return how many classes the last search looked at
+     */
+    public long getClassesSearched() { return classesSearched.sum(); }
+
+    private void startClock() {
+        timedOut = false;
+        classesSearched.reset();
+        if (timeout != null)
+            deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    private boolean isStopped() {
+        if (cancelled || timedOut)
+            return true;
+        else if (timeout != null && System.nanoTime() - deadline >= 0) {
+            timedOut = true;
+            return true;
+        }
+        else
+            return false;
+    }
+
+    private boolean notStopped(Object ignored) {
+        return !isStopped();
+    }
+
+    private <T> Stream<T> untilStopped(Stream<T> stream) {
+        // takeWhile() stops a sequential stream pulling any more elements from
+        // upstream, but on a parallel stream it would have to keep order; a
+        // filter at least saves each element's work
+        return stream.isParallel()
+                ? stream.filter(this::notStopped)
+                : stream.takeWhile(this::notStopped);
+    }
+
+    private <T> Stream<T> untilStopped(boolean stoppable, Stream<T> stream) {
+        return stoppable ? untilStopped(stream) : stream;
+    }
+
 
     // Sinks ==========================================================================================================
 
-    public Sink sink;
+    private Sink sink;
     public void setSink(Sink sink) {
         this.sink = sink;
     }
 
-    private Formatter formatter;
+    private Formatter formatter = new PlaintextFormatter();
     public void setFormatter(Formatter f) {
         this.formatter = f;
     }
 
+    // Where info messages go: standard output (as it is when the message is
+    // written) unless results are in a form that they'd corrupt
+    private PrintStream infoStream = null;
+    public void setInfoStream(PrintStream infoStream) {
+        this.infoStream = infoStream;
+    }
+
     public void info(String msg) {
-        System.out.println(formatter.formatInfo(msg));
+        (infoStream != null ? infoStream : System.out)
+                .println(formatter.formatInfo(msg));
     }
 
     public void warn(String msg) {
@@ -318,6 +785,7 @@ public class Juggler {
     public void setConversions(Conversions conversions) {
         this.conversions = conversions;
     }
+    public Conversions getConversions() { return conversions; }
 
     public <C extends Candidate, Q extends Query<C>>
     TypeMatcher getTypeMatcher(Q query) {
@@ -331,9 +799,11 @@ public class Juggler {
 
     // Main Event =====================================================================================================
 
+    // A type query, if set, is searched instead of the member query
     MemberQuery memberQuery = new MemberQuery();
     public void setMemberQuery(MemberQuery memberQuery) {
         this.memberQuery = memberQuery;
+        this.typeQuery = null;
     }
 
     TypeQuery typeQuery;
@@ -341,6 +811,30 @@ public class Juggler {
         this.typeQuery = typeQuery;
     }
 
+    public void setQuery(Query<?> query) {
+        if (query instanceof MemberQuery mq)
+            setMemberQuery(mq);
+        else if (query instanceof TypeQuery tq)
+            setTypeQuery(tq);
+    }
+
+    /**
+     * Parses a declaration and makes it the query to search for.  Unless the
+     * declaration says otherwise, only public declarations are matched.
+     *
+     * @param declaration the declaration to parse
+     * @return the query
+     */
+    public Query<?> parseQuery(String declaration) {
+        Query<?> query = new QueryFactory(this).createQuery(declaration);
+
+        if (query.getAccessibility() == null)
+            query.setAccessibility(Accessibility.PUBLIC);
+
+        setQuery(query);
+        return query;
+    }
+
 
     /**
      * Chains together a collection of processor functions, passing the output
@@ -359,33 +853,71 @@ public class Juggler {
                 .reduce(Stream::of, (a,b) -> (v -> a.apply(v).flatMap(b)));
     }
 
-    protected
+    /**
+     * Builds the stream of matches for a query.  Nothing is searched until
+     * the stream is consumed; when the matches are sorted, though, every
+     * one has to be found before the first can be returned.
+     * <p>
+     * Matches that are only to be counted needn't be in order, and needn't
+     * have duplicates removed either: classes are only searched once, and
+     * PermuteParams doesn't repeat itself, so no candidate appears twice.
+     */
+    private
     <C extends Candidate>
-    void runPipeline(Stream<C> source,
-                     Query<C> query,
-                     Collection<Function<C, Stream<C>>> candidateProcessors,
-                     Collection<Function<Match<C, Query<C>>, Stream<Match<C, Query<C>>>>> matchProcessors,
-                     Comparator<Match<C, Query<C>>> comparator
+    Stream<Match<?, ?>> matchStream(
+            Stream<C> source,
+            Query<C> query,
+            Collection<Function<C, Stream<C>>> candidateProcessors,
+            Collection<Function<Match<C, Query<C>>, Stream<Match<C, Query<C>>>>> matchProcessors,
+            Function<List<SortCriteria>, Comparator<Match<C, Query<C>>>> comparatorFor,
+            boolean forCounting
     ) {
         var candidateChain  = chainProcessors(candidateProcessors);
         var matchChain      = chainProcessors(matchProcessors);
 
-        source
-                .flatMap(candidateChain)
+        Stream<Match<C, Query<C>>> found = source
+                .flatMap(c -> untilStopped(candidateChain.apply(c)))
                 .flatMap(c -> query.match(getTypeMatcher(query), c))
-                .flatMap(matchChain)
-                .distinct()
-                .sorted(comparator)
-                .map(Match::candidate)
-                .forEach(sink);
+                .flatMap(matchChain);
+
+        if (forCounting)
+            return found.unordered().map(m -> m);
+
+        // On a sequential stream distinct() passes each new element straight
+        // through, so it's only sorted() that has to see every match before
+        // emitting any.
+        Stream<Match<C, Query<C>>> matches = found.distinct();
+
+        Stream<Match<C, Query<C>>> ordered = streaming
+                ? matches.unordered()
+                // BucketSort gathers its input as soon as it's called, so
+                // put off calling it until the stream is consumed
+                : StreamSupport.stream(
+                        () -> sorted(matches, comparatorFor).spliterator(),
+                        Spliterator.ORDERED, false);
+
+        return ordered.map(m -> m);
     }
 
-    public void doJuggle() {
+    /**
+     * @return the matches for the query, lazily, in output order (or in the
+     * order they're found, when streaming)
+     */
+    public Stream<Match<?, ?>> matches() {
+        return matches(false);
+    }
+
+    private Stream<Match<?, ?>> matches(boolean forCounting) {
+        startClock();
+
         if (typeQuery != null)
-            runPipeline(candidateTypeStream(), this.typeQuery,
+            return matchStream(candidateTypeStream(), this.typeQuery,
                     typeCandidateProcessors, typeMatchProcessors,
-                    getTypeComparator());
+                    this::getTypeComparator, forCounting);
         else {
+            Deque<Function<MemberCandidate, Stream<MemberCandidate>>>
+                    processors = new LinkedList<>(memberCandidateProcessors);
+
             if (this.memberQuery.params != null) {
                // Permuting parameters can be very slow, so here's a small
                // optimisation
@@ -396,9 +928,11 @@ public class Juggler {
                        ? minParams
                        : Long.MAX_VALUE;
 
-               prependMemberCandidateProcessor(
+               // Applied to this search only, since matches() may be
+               // called again (when watching) with a different query
+               processors.addFirst(
                        c -> {
-                           int paramCount = c.params().size();
+                           int paramCount = c.paramCount();
                            return (paramCount >= minParams
                                    && paramCount <= maxParams)
                                    ? Stream.of(c)
@@ -407,9 +941,82 @@ public class Juggler {
                );
             }
 
-            runPipeline(candidateMemberStream(), this.memberQuery,
-                    memberCandidateProcessors, memberMatchProcessors,
-                    getMemberComparator());
+            return matchStream(candidateMemberStream(), this.memberQuery,
+                    processors, memberMatchProcessors,
+                    this::getMemberComparator, forCounting);
+        }
+    }
+
+    /**
+     * Like matches(), but only looks at the candidates of earlier matches,
+     * rather than every class.  That finds all the matches that matches()
+     * would, provided that the current query refines the one that found them
+     * (see Query.refines()).
+     *
+     * @param previous matches of an earlier search
+     * @return the matches for the query, lazily, in output order
+     */
+    public Stream<Match<?, ?>> refine(List<Match<?, ?>> previous) {
+        startClock();
+
+        // Candidate processors have already been applied to these
+        Stream<? extends Candidate> candidates = previous.stream()
+                .map(Match::candidate);
+
+        if (typeQuery != null)
+            return matchStream(untilStopped(candidates.map(TypeCandidate.class::cast)),
+                    this.typeQuery, List.of(), typeMatchProcessors,
+                    this::getTypeComparator, false);
+        else
+            return matchStream(untilStopped(candidates.map(MemberCandidate.class::cast)),
+                    this.memberQuery, List.of(), memberMatchProcessors,
+                    this::getMemberComparator, false);
+    }
+
+    /**
+     * Counts the matches for the query, without sorting or formatting them.
+     *
+     * @return how many matches there are
+     */
+    public long countMatches() {
+        return matches(true).count();
+    }
+
+    /**
+     * Counts the matches for the query in each group of a facet, in a single
+     * pass, without sorting or formatting them.
+     *
+     * @param facet how to group the matches
+     * @return the number of matches in each group, most first (then by name)
+     */
+    public List<Map.Entry<String, Long>> countMatchesBy(Facet facet) {
+        Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        matches(true).forEach(m -> counts
+                .computeIfAbsent(facet.groupOf(this, m.candidate()),
+                        k -> new LongAdder())
+                .increment());
+
+        return counts.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+    }
+
+    public void doJuggle() {
+        Stream<Match<?, ?>> matches = matches();
+
+        try {
+            if (streaming)
+                // Matches may arrive on several threads in parallel mode, but
+                // sinks needn't be thread-safe
+                matches.forEach(m -> { synchronized (sink) { sink.acceptMatch(m); } });
+            else
+                matches.forEachOrdered(sink::acceptMatch);
+        }
+        finally {
+            sink.flush();
         }
     }
 }
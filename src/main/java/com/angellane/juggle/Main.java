@@ -20,27 +20,47 @@ package com.angellane.juggle;
 import com.angellane.juggle.formatter.AnsiColourFormatter;
 import com.angellane.juggle.formatter.Formatter;
 import com.angellane.juggle.formatter.PlaintextFormatter;
-import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.index.ResultCache;
+import com.angellane.juggle.match.Match;
 import com.angellane.juggle.processor.PermuteParams;
-import com.angellane.juggle.query.MemberQuery;
 import com.angellane.juggle.query.Query;
-import com.angellane.juggle.query.QueryFactory;
-import com.angellane.juggle.query.TypeQuery;
+import com.angellane.juggle.shard.ShardCoordinator;
+import com.angellane.juggle.shard.ShardRecord;
+import com.angellane.juggle.sink.BinaryOutput;
+import com.angellane.juggle.sink.JsonOutput;
+import com.angellane.juggle.sink.ShardOutput;
+import com.angellane.juggle.sink.Sink;
 import com.angellane.juggle.sink.TextOutput;
+import com.angellane.juggle.source.DirectoryWatcher;
 import com.angellane.juggle.source.FileSource;
 import com.angellane.juggle.source.Module;
+import com.angellane.juggle.source.RepositorySource;
+import com.angellane.juggle.util.JsonWriter;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.IVersionProvider;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 
@@ -90,7 +110,20 @@ public class Main implements Runnable {
     @SuppressWarnings("unused")
     @Option(names={"-cp", "--classpath", "--class-path"}, paramLabel="path", description="JAR file or directory to include in search")
     public void addToClassPath(String arg) {
-        paths(arg).forEach(p -> juggler.addSource(new FileSource(p)));
+        paths(arg).forEach(juggler::addClassPathEntry);
+    }
+
+    private RepositorySource repositorySource = null;
+
+    @SuppressWarnings("unused")
+    @Option(names={"-r", "--repository"}, paramLabel="dir", description="Maven or Gradle cache of JARs to search")
+    public void addRepository(String arg) {
+        if (repositorySource == null) {
+            // One source for all caches, so that each library is searched once
+            repositorySource = new RepositorySource(RepositorySource.defaultIndexFile());
+            juggler.addSource(repositorySource);
+        }
+        paths(arg).map(Path::of).forEach(repositorySource::addRoot);
     }
 
     @SuppressWarnings("unused")
@@ -129,9 +162,101 @@ public class Main implements Runnable {
     public void addPermutationProcessor(boolean permute) {
         if (permute)
             juggler.prependMemberCandidateProcessor(new PermuteParams());
+        this.permute = permute;
+    }
+
+    private boolean permute = false;
+
+    @SuppressWarnings("unused")
+    @Option(names={"--stream"}, negatable=true,
+            description="Output matches as soon as they're found, unsorted")
+    public void setStreaming(boolean streaming) {
+        juggler.setStreaming(streaming);
+    }
+
+    @SuppressWarnings("unused")
+    @Option(names={"--parallel"}, negatable=true,
+            description="Load and match classes on multiple threads")
+    public void setParallel(boolean parallel) {
+        juggler.setParallel(parallel);
+    }
+
+    @SuppressWarnings("unused")
+    @Option(names={"--watch"}, negatable=true,
+            description="Search again when classes in directories change")
+    public void setWatching(boolean watching) {
+        juggler.setWatching(watching);
     }
 
-    @Option(names={"-f", "--format"}, paramLabel="auto|plain|colour|color",
+    private String timeout = null;
+
+    @SuppressWarnings("unused")
+    @Option(names={"--timeout"}, paramLabel="duration",
+            description="Time limit for searching, e.g. 10s or 500ms")
+    public void setTimeout(String arg) {
+        Matcher m = TIMEOUT.matcher(arg);
+        if (!m.matches())
+            throw new JuggleError("Bad timeout: %s".formatted(arg));
+
+        long amount = Long.parseLong(m.group(1));
+        juggler.setTimeout(switch (m.group(2) == null ? "s" : m.group(2)) {
+            case "ms"   -> Duration.ofMillis(amount);
+            case "m"    -> Duration.ofMinutes(amount);
+            default     -> Duration.ofSeconds(amount);
+        });
+        timeout = arg;
+    }
+
+    private static final Pattern TIMEOUT = Pattern.compile("(\\d+)(ms|s|m)?");
+
+    private void warnIfTimedOut() {
+        if (juggler.isTimedOut())
+            juggler.warn("search timed out after %s; results are partial (searched %d of %d classes)"
+                    .formatted(timeout, juggler.getClassesSearched(),
+                            juggler.countClassesToSearch()));
+    }
+
+    @Option(names={"--cache"}, negatable=true,
+            description="Reuse results of identical earlier searches")
+    public boolean cache = false;
+
+    @Option(names={"--count"},
+            description="Only count matches")
+    public boolean count = false;
+
+    @Option(names={"--facet"}, paramLabel="package|class|module|jar|modifier",
+            description="Count matches in each package, etc.")
+    public Facet facet = null;
+
+    @Option(names={"--interactive"},
+            description="Read more queries from standard input")
+    public boolean interactive = false;
+
+    @Option(names={"--shards"}, paramLabel="count",
+            description="Split the search across worker processes")
+    public int shardCount = 1;
+
+    private boolean isShardWorker = false;
+
+    @SuppressWarnings("unused")
+    @Option(names={ShardCoordinator.SHARD_OPTION}, hidden=true,
+            paramLabel="index/count",
+            description="Search one shard, as a worker for --shards")
+    public void setShard(String arg) {
+        String[] comps = arg.split("/");
+        try {
+            if (comps.length != 2)
+                throw new NumberFormatException(arg);
+            juggler.setShard(Integer.parseInt(comps[0]),
+                    Integer.parseInt(comps[1]));
+        }
+        catch (NumberFormatException ex) {
+            throw new JuggleError("Bad shard: %s".formatted(arg));
+        }
+        isShardWorker = true;
+    }
+
+    @Option(names={"-f", "--format"}, paramLabel="auto|plain|colour|color|ndjson|binary",
             description="Output format")
     public FormatterOption formatterOption = FormatterOption.AUTO;
 
@@ -139,6 +264,8 @@ public class Main implements Runnable {
         PLAIN(new PlaintextFormatter()),
         COLOUR(new AnsiColourFormatter()),
         COLOR(COLOUR),
+        NDJSON(PLAIN),              // Messages are plain; results are JSON
+        BINARY(PLAIN),              // ... or BinaryOutput
         AUTO(System.console() == null ? PLAIN : COLOUR);
 
         private final Formatter f;
@@ -148,11 +275,20 @@ public class Main implements Runnable {
         Formatter getFormatter() {
             return f;
         }
+
+        // Results that other programs will parse, so messages mustn't be
+        // mixed in with them
+        boolean isMachineReadable() {
+            return this == NDJSON || this == BINARY;
+        }
     }
 
     @Option(names={"--show-query"}, description="Show query")
     public boolean showQuery = false;
 
+    @Option(names={"--show-origins"}, description="Show which JARs each result is in")
+    public boolean showOrigins = false;
+
     @Option(names={"--dry-run"}, description="Dry run only")
     public boolean dryRun = false;
 
@@ -163,25 +299,24 @@ public class Main implements Runnable {
         return String.join(" ", queryParams);
     }
 
-    // Application logic follows.
+    // The original arguments, for passing on to shard workers
+    List<String> commandLineArgs = List.of();
 
-    void parseDeclarationQuery(String queryString) {
-        if (!queryString.isEmpty()) {
-            QueryFactory factory = new QueryFactory(juggler);
+    // Where results are written; --cache copies them as they go
+    private PrintStream out = System.out;
 
-            Query<?> query = factory.createQuery(queryString);
+    // Application logic follows.
 
-            if (query.getAccessibility() == null)
-                query.setAccessibility(Accessibility.PUBLIC);
+    Query<?> parseDeclarationQuery(String queryString) {
+        if (queryString.isEmpty())
+            return null;
 
-            if (query instanceof MemberQuery mq)
-                juggler.setMemberQuery(mq);
-            else if (query instanceof TypeQuery tq)
-                juggler.setTypeQuery(tq);
+        Query<?> query = juggler.parseQuery(queryString);
 
-            if (showQuery)
-                juggler.info("QUERY: %s".formatted(query));
-        }
+        if (showQuery && !isShardWorker)
+            juggler.info("QUERY: %s".formatted(query));
+
+        return query;
     }
 
     @Override
@@ -190,6 +325,8 @@ public class Main implements Runnable {
 
         Formatter f = formatterOption.getFormatter();
         juggler.setFormatter(f);
+        if (formatterOption.isMachineReadable())
+            juggler.setInfoStream(System.err);
 
         // Sources
 
@@ -197,39 +334,299 @@ public class Main implements Runnable {
 
         // Processors
 
-        juggler.addMemberFilter(m -> !m.member().getDeclaringClass().isAnonymousClass());       // anon and local classes ...
-        juggler.addMemberFilter(m -> !m.member().getDeclaringClass().isLocalClass());           // ... are unutterable anyway
-
-        juggler.addTypeFilter(t -> !t.clazz().isAnonymousClass());
-        juggler.addTypeFilter(t -> !t.clazz().isLocalClass());
+        juggler.filterUnutterableClasses();
 
         // Declaration Query in remaining parameters
 
         String queryString = getQueryString();
 
-        parseDeclarationQuery(queryString);
-
-        if (!dryRun) {
+        Query<?> query = parseDeclarationQuery(queryString);
+
+        if (dryRun)
+            return;
+
+        if (juggler.isWatching() && (isShardWorker || shardCount > 1))
+            throw new JuggleError("Can't use --watch with --shards");
+        if (formatterOption == FormatterOption.BINARY && (isShardWorker || shardCount > 1))
+            throw new JuggleError("Can't use -f binary with --shards");
+        if (interactive && (juggler.isWatching() || isShardWorker || shardCount > 1))
+            throw new JuggleError("Can't use --interactive with --watch or --shards");
+        if ((count || facet != null) && (interactive || juggler.isWatching()
+                || isShardWorker || shardCount > 1))
+            throw new JuggleError("Can't use --count or --facet with --interactive, --watch or --shards");
+        if ((count || facet != null) && formatterOption == FormatterOption.BINARY)
+            throw new JuggleError("Can't use --count or --facet with -f binary");
+
+        if (isShardWorker)
+            runShardWorker(f);
+        else if (shardCount > 1)
+            runShardCoordinator(f);
+        else if (interactive)
+            runInteractive(query, sinkFor(f));
+        else if (count || facet != null)
+            runCount();
+        else if (cache && query != null && !juggler.isWatching())
+            runCached(query, f);
+        else {
             // Sinks
 
-            juggler.setSink(new TextOutput(juggler.getImportedPackageNames(), System.out, f));
+            juggler.setSink(sinkFor(f));
 
             // Go!
 
             juggler.doJuggle();
+            warnIfTimedOut();
+
+            if (juggler.isWatching())
+                watchForChanges(queryString);
         }
     }
 
-    public static void main(String[] args) {
+    private TextOutput textOutput(Formatter f) {
+        TextOutput text = new TextOutput(juggler.getImportedPackageNames(), out, f);
+        text.setAutoFlush(juggler.isStreaming());   // Streaming is for seeing results early
+        if (showOrigins)
+            text.setOrigins(c -> juggler.getClassOrigins().copiesOf(c));
+        return text;
+    }
+
+    private JsonOutput jsonOutput() {
+        JsonOutput json = new JsonOutput(out);
+        json.setAutoFlush(juggler.isStreaming());
+        return json;
+    }
+
+    private BinaryOutput binaryOutput() {
+        BinaryOutput binary = new BinaryOutput(out);
+        binary.setAutoFlush(juggler.isStreaming());
+        return binary;
+    }
+
+    // Counting skips sorting and formatting matches altogether
+    private void runCount() {
+        if (facet == null)
+            printCount(null, juggler.countMatches());
+        else {
+            long total = 0;
+            for (Map.Entry<String, Long> e : juggler.countMatchesBy(facet)) {
+                printCount(e.getKey(), e.getValue());
+                total += e.getValue();
+            }
+            if (count)
+                printCount(null, total);
+        }
+        out.flush();
+        warnIfTimedOut();
+    }
+
+    // A null group is the total
+    private void printCount(String group, long n) {
+        if (formatterOption == FormatterOption.NDJSON) {
+            StringBuilder sb = new StringBuilder();
+            JsonWriter json = new JsonWriter(sb).beginObject();
+            if (group != null)
+                json.name(facet.name().toLowerCase()).value(group);
+            json.name("count").value(n).endObject();
+            out.println(sb);
+        }
+        else
+            out.println(group == null ? "%8d".formatted(n) : "%8d  %s".formatted(n, group));
+    }
+
+    private void runCached(Query<?> query, Formatter f) {
+        ResultCache results = new ResultCache(ResultCache.defaultDirectory(),
+                ResultCache.DEFAULT_MAX_ENTRIES);
+        String key = ResultCache.key(List.of(
+                String.valueOf(Main.class.getPackage().getImplementationVersion()),
+                query.canonicalForm(),
+                juggler.getConversions().toString(),
+                juggler.getSortCriteria().toString(),
+                juggler.getImportedPackageNames().toString(),
+                Boolean.toString(permute),
+                Boolean.toString(juggler.isStreaming()),
+                formatterOption + " " + f.getClass().getName(),
+                Boolean.toString(showOrigins),
+                ResultCache.fingerprint(juggler.getSources())));
+
+        Optional<byte[]> hit = results.get(key);
+        if (hit.isPresent()) {
+            System.out.write(hit.get(), 0, hit.get().length);
+            System.out.flush();
+            return;
+        }
+
+        // Write results as usual, keeping a copy
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        out = new PrintStream(new TeeOutputStream(System.out, copy), true);
+        juggler.setSink(sinkFor(f));
+
+        juggler.doJuggle();
+        out.flush();
+        warnIfTimedOut();
+
+        if (!juggler.isTimedOut()) {
+            try {
+                results.put(key, copy.toByteArray());
+            }
+            catch (IOException ex) {
+                juggler.warn("--cache: couldn't save results: %s".formatted(ex.getMessage()));
+            }
+        }
+    }
+
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+    }
+
+    private void watchForChanges(String queryString) {
+        List<FileSource> directories = juggler.getDirectorySources();
+        if (directories.isEmpty()) {
+            juggler.warn("--watch: no directories on the classpath to watch");
+            return;
+        }
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher(directories)) {
+            while (!Thread.currentThread().isInterrupted()) {
+                watcher.awaitChange();
+
+                try {
+                    Set<String> changed = juggler.refreshDirectorySources();
+                    watcher.registerRoots();    // In case one was recreated
+                    if (changed.isEmpty())
+                        continue;       // Files were touched, but not changed
+
+                    juggler.info("%d changed class%s; searching again"
+                            .formatted(changed.size(),
+                                    changed.size() == 1 ? "" : "es"));
+
+                    // Types named in the query may have been reloaded
+                    parseDeclarationQuery(queryString);
+                    juggler.doJuggle();
+                    warnIfTimedOut();
+                }
+                catch (JuggleError ex) {
+                    // Probably mid-way through a build; keep watching
+                    juggler.error(ex.getLocalizedMessage());
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Sink sinkFor(Formatter f) {
+        return switch (formatterOption) {
+            case NDJSON -> jsonOutput();
+            case BINARY -> binaryOutput();
+            default     -> textOutput(f);
+        };
+    }
+
+    private void runInteractive(Query<?> query, Sink sink) {
+        InteractiveSession session = new InteractiveSession(juggler);
+
+        if (query != null) {
+            session.search(query).forEach(sink::acceptMatch);
+            sink.flush();
+            warnIfTimedOut();
+        }
+
+        try {
+            session.run(new BufferedReader(new InputStreamReader(System.in)),
+                    System.console() != null ? System.out : null,
+                    this::parseDeclarationQuery, sink, this::warnIfTimedOut);
+        }
+        catch (IOException ex) {
+            throw new JuggleError(ex.getLocalizedMessage());
+        }
+    }
+
+    private void runShardCoordinator(Formatter f) {
+        // Workers have no console, so tell them which format "auto" chose.
+        // Options have to come before any "--" that ends them.
+        List<String> workerArgs = new ArrayList<>(commandLineArgs);
+        int endOfOptions = workerArgs.indexOf("--");
+        workerArgs.addAll(endOfOptions == -1 ? workerArgs.size() : endOfOptions,
+                List.of("-f", formatterOption == FormatterOption.NDJSON
+                        ? FormatterOption.NDJSON.name()
+                        : f instanceof AnsiColourFormatter
+                        ? FormatterOption.COLOUR.name()
+                        : FormatterOption.PLAIN.name()));
+
+        new ShardCoordinator(workerArgs, shardCount,
+                ShardRecord.comparator(juggler.getSortCriteria()))
+                .run(System.out::println);
+    }
+
+    private void runShardWorker(Formatter f) {
+        TextOutput text = textOutput(f);
+        JsonOutput json = jsonOutput();
+        Function<Match<?, ?>, String> renderer =
+                formatterOption == FormatterOption.NDJSON
+                        ? json::encode
+                        : m -> text.describe(m.candidate());
+
+        try (ShardOutput out = new ShardOutput(juggler.getImportedPackageNames(),
+                renderer, ShardRecord.comparator(juggler.getSortCriteria()),
+                System.out)) {
+            juggler.setSink(out);
+            juggler.setStreaming(true);     // ShardOutput does its own sorting
+            juggler.doJuggle();
+        }
+
+        warnIfTimedOut();
+    }
+
+    /**
+     * Runs Juggle with the given command-line arguments.
+     *
+     * @return the exit status: non-zero if the arguments couldn't be parsed
+     *         or the search failed
+     */
+    public static int run(String[] args) {
         Main m = new Main();
+        m.commandLineArgs = List.of(args);
         try {
-            new CommandLine(m)
+            return new CommandLine(m)
                     .setCaseInsensitiveEnumValuesAllowed(true)
                     .setOverwrittenOptionsAllowed(true)
                     .execute(args);
         }
         catch (JuggleError ex) {
             m.juggler.error(ex.getLocalizedMessage());
+            return 1;
         }
     }
+
+    public static void main(String[] args) {
+        // The shard coordinator relies on a failed worker's exit status
+        int status = run(args);
+        if (status != 0)
+            System.exit(status);
+    }
 }
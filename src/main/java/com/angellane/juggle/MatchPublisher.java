@@ -0,0 +1,150 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.match.Match;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the matches of a search to reactive subscribers.
+ * <p>
+ * Every subscriber gets a search of its own, run by the executor.  Matches
+ * are pulled from the search's stream only when the subscriber has asked
+ * for them, so an unsorted (streaming) search pauses while the subscriber
+ * is busy.  A sorted search has to find every match before it can deliver
+ * the first, so only delivery waits on demand.  Cancelling the subscription
+ * cancels the search, which then skips the rest of the classes.
+ */
+class MatchPublisher implements Flow.Publisher<Match<?, ?>> {
+    private final Supplier<Juggler> jugglerFactory;
+    private final Executor executor;
+
+    /**
+     * @param jugglerFactory makes a juggler, ready to search, for each subscriber
+     * @param executor runs each subscriber's search
+     */
+    MatchPublisher(Supplier<Juggler> jugglerFactory, Executor executor) {
+        this.jugglerFactory = jugglerFactory;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Match<?, ?>> subscriber) {
+        Objects.requireNonNull(subscriber);
+
+        MatchSubscription subscription =
+                new MatchSubscription(subscriber, jugglerFactory.get());
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription::run);
+    }
+
+    private static class MatchSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Match<?, ?>> subscriber;
+        private final Juggler juggler;
+
+        private long demand = 0;                    // Guarded by this
+        private Throwable badRequest = null;        // Guarded by this
+        private volatile boolean cancelled = false;
+
+        MatchSubscription(Flow.Subscriber<? super Match<?, ?>> subscriber,
+                          Juggler juggler) {
+            this.subscriber = subscriber;
+            this.juggler = juggler;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                // Only the first bad request is reported; none adds demand
+                if (badRequest == null)
+                    badRequest = new IllegalArgumentException(
+                            "Non-positive request: %d".formatted(n));
+            }
+            else
+                // Demand of Long.MAX_VALUE or more is unbounded
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            notifyAll();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            juggler.cancel();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        void run() {
+            try {
+                Iterator<Match<?, ?>> matches = juggler.matches().iterator();
+
+                while (awaitDemand() && matches.hasNext()) {
+                    Match<?, ?> m = matches.next();
+                    if (cancelled)
+                        break;
+
+                    synchronized (this) {
+                        if (demand != Long.MAX_VALUE)
+                            --demand;
+                    }
+                    subscriber.onNext(m);
+                }
+
+                Throwable error;
+                synchronized (this) {
+                    error = badRequest;
+                }
+
+                if (error != null)
+                    subscriber.onError(error);
+                else if (!cancelled)
+                    subscriber.onComplete();
+            }
+            catch (RuntimeException ex) {
+                if (!cancelled)
+                    subscriber.onError(ex);
+            }
+        }
+
+        /**
+         * Waits until the subscriber wants another match.
+         *
+         * @return false if the search should stop instead
+         */
+        private synchronized boolean awaitDemand() {
+            try {
+                while (demand == 0 && badRequest == null && !cancelled)
+                    wait();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+
+            if (badRequest != null)
+                juggler.cancel();
+            return badRequest == null && !cancelled;
+        }
+    }
+}
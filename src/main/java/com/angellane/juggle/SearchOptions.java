@@ -0,0 +1,91 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * How a JuggleEngine should carry out one search: the equivalent, for a
+ * single query, of the command-line options that don't choose what's
+ * searched.  Options are immutable; the with methods return modified copies.
+ *
+ * @param importedPackageNames packages whose classes can be named without
+ *                             qualification (java.lang always can be)
+ * @param conversions          whether types may be boxed, unboxed or widened
+ * @param sortCriteria         how to order the results; empty for the default
+ * @param permuteParams        whether to match parameters in any order
+ * @param streaming            whether to return matches as they're found,
+ *                             unsorted
+ * @param parallel             whether to search on multiple threads
+ * @param timeout              how long the search may take, or null for no
+ *                             limit
+ */
+public record SearchOptions(
+        List<String>        importedPackageNames,
+        Juggler.Conversions conversions,
+        List<SortCriteria>  sortCriteria,
+        boolean             permuteParams,
+        boolean             streaming,
+        boolean             parallel,
+        Duration            timeout
+) {
+    public static final SearchOptions DEFAULTS = new SearchOptions(
+            List.of(), Juggler.Conversions.AUTO, List.of(), false, false, false,
+            null);
+
+    public SearchOptions {
+        importedPackageNames = List.copyOf(importedPackageNames);
+        sortCriteria = List.copyOf(sortCriteria);
+    }
+
+    public SearchOptions withImports(String... packageNames) {
+        return new SearchOptions(List.of(packageNames), conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withConversions(Juggler.Conversions conversions) {
+        return new SearchOptions(importedPackageNames, conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withSortCriteria(SortCriteria... criteria) {
+        return new SearchOptions(importedPackageNames, conversions,
+                List.of(criteria), permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withPermuteParams(boolean permuteParams) {
+        return new SearchOptions(importedPackageNames, conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withStreaming(boolean streaming) {
+        return new SearchOptions(importedPackageNames, conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withParallel(boolean parallel) {
+        return new SearchOptions(importedPackageNames, conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+
+    public SearchOptions withTimeout(Duration timeout) {
+        return new SearchOptions(importedPackageNames, conversions,
+                sortCriteria, permuteParams, streaming, parallel, timeout);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.match.Match;
+
+import java.util.List;
+
+/**
+ * All the matches of a search, and how much of the search was done.
+ *
+ * @param matches         the matches, in output order
+ * @param partial         whether the search ran out of time, so that there
+ *                        may be better matches that weren't found
+ * @param classesSearched how many classes were looked at
+ * @param classesToSearch how many classes there were to look at
+ */
+public record SearchResult(
+        List<Match<?, ?>>   matches,
+        boolean             partial,
+        long                classesSearched,
+        long                classesToSearch
+) {
+    public SearchResult {
+        matches = List.copyOf(matches);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.candidate;
+
+import com.angellane.juggle.util.Interner;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared, interned building blocks for candidates.
+ * <p>
+ * Scanning a large classpath creates hundreds of thousands of candidates,
+ * and the vast majority of them carry identical annotation sets, throws
+ * sets and parameter lists (most commonly: empty ones, or just an implicit
+ * `this`).  Rather than each candidate owning its own copies, the
+ * candidate factories route these values through here so that equal
+ * values share a single instance.
+ */
+final class Flyweights {
+    private Flyweights() {}
+
+    private static final Interner<Set<Class<?>>> classSets   = new Interner<>();
+    private static final Interner<Param>         params      = new Interner<>();
+    private static final Interner<List<Param>>   paramLists  = new Interner<>();
+
+    static Set<Class<?>> classSet(Class<?>[] classes) {
+        return classes.length == 0
+                ? Set.of()
+                : classSets.intern(Set.copyOf(Arrays.asList(classes)));
+    }
+
+    static Set<Class<?>> annotationTypes(Annotation[] annotations) {
+        return classSet(Arrays.stream(annotations)
+                .map(Annotation::annotationType)
+                .toArray(Class<?>[]::new));
+    }
+
+    static Param param(Param p) {
+        return params.intern(p);
+    }
+
+    static List<Param> paramList(List<Param> ps) {
+        return ps.isEmpty()
+                ? List.of()
+                : paramLists.intern(ps.stream().map(Flyweights::param).toList());
+    }
+}
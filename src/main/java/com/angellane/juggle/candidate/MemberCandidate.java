@@ -19,10 +19,8 @@ package com.angellane.juggle.candidate;
 
 import com.angellane.juggle.match.Accessibility;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -31,85 +29,203 @@ import java.util.stream.Stream;
  * The 'member' field is the member itself.  More interesting are the paramTypes, returnType and throwTypes
  * fields, which represent the type the member would have if considered as a static function.  For static
  * methods the paramTypes field includes an implicit first entry representing the type of 'this'.
+ * <p>
+ * Most queries only look at a few of these attributes, so the expensive
+ * ones (annotations, parameters and exceptions) are only reflected on the
+ * first time they're asked for, and are then remembered.  The memo fields
+ * are deliberately not synchronised: the values are immutable, and two
+ * threads racing to compute the same one will simply arrive at equal
+ * results.
  */
-public record MemberCandidate(
-        Member member,
-        Accessibility accessibility,
-        int otherModifiers,
-        Set<Class<?>> annotationTypes,
-        String simpleName,
-        String canonicalName,
-        Class<?> returnType,
-        List<Param> params,
-        Set<Class<?>> throwTypes
-)
-        implements Candidate {
-
-    // Constructor used by factory methods
-    private MemberCandidate(Member member, Set<Class<?>> annotationTypes,
-                            Class<?> returnType, List<Param> params,
-                            Set<Class<?>> throwTypes) {
-        this(member, Accessibility.fromModifiers(member.getModifiers()),
-                member.getModifiers() & OTHER_MODIFIERS_MASK,
-                annotationTypes, member.getName(),
-                member.getDeclaringClass().getCanonicalName()
-                        + "." + member.getName(),
-                returnType, params, throwTypes);
+public final class MemberCandidate implements Candidate {
+    // What sort of static function does this candidate represent?  A field
+    // contributes two candidates: a getter and a setter.
+    private enum Kind { METHOD, CONSTRUCTOR, GETTER, SETTER }
+
+    private final Member    member;
+    private final Kind      kind;
+    private final boolean   paramAnnotations;
+
+    private Set<Class<?>>   annotationTypes;    // computed on demand
+    private List<Param>     params;             // computed on demand
+    private Set<Class<?>>   throwTypes;         // computed on demand
+
+    private MemberCandidate(Member member, Kind kind, boolean paramAnnotations) {
+        this.member           = member;
+        this.kind             = kind;
+        this.paramAnnotations = paramAnnotations;
     }
 
     // This constructor is used by parameter permutation generator
     public MemberCandidate(MemberCandidate other, List<Param> params) {
-        this(other.member, other.accessibility, other.otherModifiers,
-                other.annotationTypes, other.simpleName, other.canonicalName,
-                other.returnType, params, other.throwTypes);
+        this(other.member, other.kind, other.paramAnnotations);
+        this.annotationTypes = other.annotationTypes;
+        this.throwTypes      = other.throwTypes;
+        this.params          = params;
+    }
+
+    public Member member() {
+        return member;
+    }
+
+    @Override
+    public Accessibility accessibility() {
+        return Accessibility.fromModifiers(member.getModifiers());
+    }
+
+    @Override
+    public int otherModifiers() {
+        return member.getModifiers() & OTHER_MODIFIERS_MASK;
+    }
+
+    @Override
+    public Set<Class<?>> annotationTypes() {
+        if (annotationTypes == null)
+            annotationTypes = Flyweights.annotationTypes(
+                    ((AnnotatedElement)member).getDeclaredAnnotations());
+        return annotationTypes;
+    }
+
+    @Override
+    public String simpleName() {
+        return member.getName();
+    }
+
+    @Override
+    public String canonicalName() {
+        return member.getDeclaringClass().getCanonicalName()
+                + "." + member.getName();
     }
 
     @Override
     public String packageName() {
-        return member().getDeclaringClass().getPackageName();
+        return member.getDeclaringClass().getPackageName();
+    }
+
+    public Class<?> returnType() {
+        return switch (kind) {
+            case METHOD         -> ((Method)member).getReturnType();
+            case CONSTRUCTOR    -> member.getDeclaringClass();
+            case GETTER         -> ((Field)member).getType();
+            case SETTER         -> Void.TYPE;
+        };
+    }
+
+    public List<Param> params() {
+        if (params == null)
+            params = switch (kind) {
+                case METHOD         -> paramsWithImplicitThis(member,
+                        executableParams((Executable)member));
+                case CONSTRUCTOR    -> Flyweights.paramList(
+                        executableParams((Executable)member));
+                case GETTER         -> paramsWithImplicitThis(member,
+                        List.of());
+                case SETTER         -> paramsWithImplicitThis(member,
+                        List.of(new Param(((Field)member).getType(),
+                                member.getName())));
+            };
+        return params;
+    }
+
+    /**
+     * The number of parameters this candidate takes, including any implicit
+     * `this`.  Unlike params().size(), this doesn't need to reflect on the
+     * parameters themselves.
+     *
+     * @return the number of entries in params()
+     */
+    public int paramCount() {
+        if (params != null)
+            return params.size();
+
+        int implicitThis = isStatic(member) ? 0 : 1;
+        return switch (kind) {
+            case METHOD         -> implicitThis
+                    + ((Executable)member).getParameterCount();
+            case CONSTRUCTOR    -> ((Executable)member).getParameterCount();
+            case GETTER         -> implicitThis;
+            case SETTER         -> implicitThis + 1;
+        };
+    }
+
+    public Set<Class<?>> throwTypes() {
+        if (throwTypes == null)
+            throwTypes = member instanceof Executable e
+                    ? Flyweights.classSet(e.getExceptionTypes())
+                    : Set.of();
+        return throwTypes;
+    }
+
+
+    // Candidates are values: two candidates for the same member that present
+    // the same static function signature are equal.
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        else if (!(other instanceof MemberCandidate c))
+            return false;
+        else
+            return member.equals(c.member)
+                    && kind == c.kind
+                    && params().equals(c.params());
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(member, kind, params());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "member=" + member +
+                ", kind=" + kind +
+                ", params=" + params() +
+                '}';
+    }
+
+
+    // FACTORIES ==============================================================
+
+    // The factory methods below take a flag saying whether the query will
+    // look at parameter annotations.  Most don't, and skipping them avoids
+    // parsing annotations for every parameter of every method.
+
     public static MemberCandidate memberFromMethod(Method m) {
-        return new MemberCandidate(m,
-                annotationClasses(m.getAnnotations()),
-                m.getReturnType(),
-                paramsWithImplicitThis(m,
-                        Arrays.stream(m.getParameters())
-                                .map(Param::new).toList()
-                ),
-                Set.of(m.getExceptionTypes())
-        );
+        return memberFromMethod(m, true);
+    }
+
+    public static MemberCandidate memberFromMethod(Method m,
+                                                   boolean paramAnnotations) {
+        return new MemberCandidate(m, Kind.METHOD, paramAnnotations);
     }
 
     public static MemberCandidate memberFromConstructor(Constructor<?> c) {
-        return new MemberCandidate(c,
-                annotationClasses(c.getAnnotations()),
-                c.getDeclaringClass(),
-                Arrays.stream(c.getParameters()).map(Param::new).toList(),
-                Set.of(c.getExceptionTypes())
-        );
+        return memberFromConstructor(c, true);
     }
 
-    public static List<MemberCandidate> membersFromField(Field f) {
-        Set<Class<?>> as = annotationClasses(
-                f.getDeclaredAnnotations());
+    public static MemberCandidate memberFromConstructor(Constructor<?> c,
+                                                        boolean paramAnnotations) {
+        return new MemberCandidate(c, Kind.CONSTRUCTOR, paramAnnotations);
+    }
 
-        var getter = new MemberCandidate(f, as, f.getType(),
-                paramsWithImplicitThis(f, List.of()), Set.of()
-        );
-        var setter = new MemberCandidate(f, as, Void.TYPE,
-                paramsWithImplicitThis(f, List.of(
-                        new Param(f.getType(), f.getName()))
-                ), Set.of()
+    public static List<MemberCandidate> membersFromField(Field f) {
+        return List.of(
+                new MemberCandidate(f, Kind.GETTER, false),
+                new MemberCandidate(f, Kind.SETTER, false)
         );
+    }
 
-        return List.of(getter, setter);
+    private List<Param> executableParams(Executable e) {
+        return Arrays.stream(e.getParameters())
+                .map(p -> new Param(p, paramAnnotations))
+                .toList();
     }
 
-    private static Set<Class<?>> annotationClasses(Annotation[] annotations) {
-        return Arrays.stream(annotations)
-                .map(Annotation::annotationType)
-                .collect(Collectors.toSet());
+    private static boolean isStatic(Member m) {
+        return Modifier.STATIC == (m.getModifiers() & Modifier.STATIC);
     }
 
     private static Param thisParam(Member m) {
@@ -120,10 +236,12 @@ public record MemberCandidate(
     private static List<Param> paramsWithImplicitThis(
             Member m, List<Param> params
     ) {
-        if (Modifier.STATIC == (m.getModifiers() & Modifier.STATIC))
-            return params;
+        if (isStatic(m))
+            return Flyweights.paramList(params);
         else
-            return Stream.concat(Stream.of(thisParam(m)), params.stream())
-                    .toList();
+            return Flyweights.paramList(
+                    Stream.concat(Stream.of(thisParam(m)), params.stream())
+                            .toList()
+            );
     }
 }
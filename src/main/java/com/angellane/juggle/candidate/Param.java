@@ -17,11 +17,8 @@
  */
 package com.angellane.juggle.candidate;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Parameter;
-import java.util.Arrays;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * This class represents a single parameter of a method declaration,
@@ -33,9 +30,20 @@ public record Param(Set<Class<?>> annotations,
                     String name
                     ) {
     public Param(Parameter p) {
-        this(Arrays.stream(p.getAnnotations())
-                        .map(Annotation::annotationType)
-                        .collect(Collectors.toSet()),
+        this(p, true);
+    }
+
+    /**
+     * Creates a Param from a reflected parameter, optionally skipping its
+     * annotations (which are then reported as an empty set).
+     *
+     * @param p the parameter
+     * @param withAnnotations whether to reflect on the parameter's annotations
+     */
+    public Param(Parameter p, boolean withAnnotations) {
+        this(withAnnotations
+                        ? Flyweights.annotationTypes(p.getAnnotations())
+                        : Set.of(),
                 p.getModifiers(),
                 p.getType(),
                 p.isNamePresent() ? p.getName() : null);
@@ -20,57 +20,110 @@ package com.angellane.juggle.candidate;
 import com.angellane.juggle.match.Accessibility;
 import com.angellane.juggle.query.TypeFlavour;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.RecordComponent;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-
-public record TypeCandidate(
-        Class<?>                clazz,
-        TypeFlavour             flavour,
-
-        Set<Class<?>>           annotationTypes,
-        Accessibility           accessibility,
-        int                     otherModifiers,
-        String                  simpleName,
-        String                  canonicalName,
-
-        Class<?>                superClass,
-        Set<Class<?>>           superInterfaces,
-        Set<Class<?>>           permittedSubtypes,
-        List<RecordComponent>   recordComponents
-)
-implements Candidate
-{
+
+/**
+ * A candidate type.  As with MemberCandidate, the more expensive attributes
+ * are only reflected on when first asked for, and then remembered.
+ */
+public final class TypeCandidate implements Candidate {
+    private final Class<?>          clazz;
+
+    private Set<Class<?>>           annotationTypes;    // computed on demand
+    private Set<Class<?>>           superInterfaces;    // computed on demand
+    private Set<Class<?>>           permittedSubtypes;  // computed on demand
+    private List<RecordComponent>   recordComponents;   // computed on demand
+
+    private TypeCandidate(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    public static TypeCandidate candidateForType(Class<?> c) {
+        return new TypeCandidate(c);
+    }
+
+    public Class<?> clazz() {
+        return clazz;
+    }
+
+    public TypeFlavour flavour() {
+        return TypeFlavour.forClass(clazz);
+    }
+
+    @Override
+    public Set<Class<?>> annotationTypes() {
+        if (annotationTypes == null)
+            annotationTypes =
+                    Flyweights.annotationTypes(clazz.getDeclaredAnnotations());
+        return annotationTypes;
+    }
+
+    @Override
+    public Accessibility accessibility() {
+        return Accessibility.fromModifiers(clazz.getModifiers());
+    }
+
+    @Override
+    public int otherModifiers() {
+        return clazz.getModifiers() & OTHER_MODIFIERS_MASK;
+    }
+
+    @Override
+    public String simpleName() {
+        return clazz.getSimpleName();
+    }
+
+    @Override
+    public String canonicalName() {
+        return clazz.getCanonicalName();
+    }
+
+    @Override
     public String packageName() {
         return clazz.getPackageName();
     }
 
-    public static TypeCandidate candidateForType(Class<?> c) {
-        TypeFlavour f                       = TypeFlavour.forClass(c);
-        Accessibility access                =
-                Accessibility.fromModifiers(c.getModifiers());
-        int mods = c.getModifiers() & OTHER_MODIFIERS_MASK;
-        Set<Class<?>> annotations           =
-                Arrays.stream(c.getDeclaredAnnotations())
-                        .map(Annotation::annotationType)
-                        .collect(Collectors.toSet());
-        Class<?> superClass                 = c.getSuperclass();
-        Set<Class<?>> superInterfaces       = Set.of(c.getInterfaces());
-        Set<Class<?>> permittedSubtypes     =
-                c.getPermittedSubclasses() == null
-                ? Set.of()
-                : Set.of(c.getPermittedSubclasses());
-        List<RecordComponent> recordComponents =
-                c.getRecordComponents() == null
-                ? List.of()
-                : List.of(c.getRecordComponents());
-
-        return new TypeCandidate(c, f, annotations, access, mods,
-                c.getSimpleName(), c.getCanonicalName(),
-                superClass, superInterfaces,
-                permittedSubtypes, recordComponents);
+    public Class<?> superClass() {
+        return clazz.getSuperclass();
+    }
+
+    public Set<Class<?>> superInterfaces() {
+        if (superInterfaces == null)
+            superInterfaces = Flyweights.classSet(clazz.getInterfaces());
+        return superInterfaces;
+    }
+
+    public Set<Class<?>> permittedSubtypes() {
+        if (permittedSubtypes == null)
+            permittedSubtypes = clazz.getPermittedSubclasses() == null
+                    ? Set.of()
+                    : Flyweights.classSet(clazz.getPermittedSubclasses());
+        return permittedSubtypes;
+    }
+
+    public List<RecordComponent> recordComponents() {
+        if (recordComponents == null)
+            recordComponents = clazz.getRecordComponents() == null
+                    ? List.of()
+                    : List.of(clazz.getRecordComponents());
+        return recordComponents;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other
+                || other instanceof TypeCandidate c && clazz.equals(c.clazz);
+    }
+
+    @Override
+    public int hashCode() {
+        return clazz.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{clazz=" + clazz + '}';
     }
 }
@@ -17,8 +17,6 @@
  */
 package com.angellane.juggle.formatter;
 
-import java.util.Arrays;
-
 import static com.angellane.juggle.formatter.AnsiColourFormatter.EscapeSequence.*;
 
 public class AnsiColourFormatter implements Formatter {
@@ -35,18 +33,23 @@ public class AnsiColourFormatter implements Formatter {
 
         private static final String CSI = "\033[";
 
-        private final String code;
-        EscapeSequence(String code) { this.code = code; }
+        private final String sequence;
+        EscapeSequence(String code) { this.sequence = CSI + code + "m"; }
 
-        public String toString() { return CSI + code + "m"; }
+        public String toString() { return sequence; }
     }
 
     String format(String s, EscapeSequence... formats) {
         StringBuilder b = new StringBuilder();
-        Arrays.stream(formats).forEach(b::append);
+        append(b, s, formats);
+        return b.toString();
+    }
+
+    void append(StringBuilder b, String s, EscapeSequence... formats) {
+        for (EscapeSequence format : formats)
+            b.append(format);
         b.append(s);
         b.append(NORMAL);
-        return b.toString();
     }
 
     @Override public String formatPunctuation   (String s)  { return format(s, FAINT        ); }
@@ -56,6 +59,13 @@ public class AnsiColourFormatter implements Formatter {
     @Override public String formatMethodName    (String s)  { return format(s, BRIGHT_GREEN ); }
     @Override public String formatType          (String s)  { return format(s, BRIGHT_BLUE  ); }
 
+    @Override public void appendPunctuation     (StringBuilder b, String s) { append(b, s, FAINT        ); }
+    @Override public void appendKeyword         (StringBuilder b, String s) { append(b, s, FAINT        ); }
+    @Override public void appendPackageName     (StringBuilder b, String s) { append(b, s, FAINT, GREEN ); }
+    @Override public void appendClassName       (StringBuilder b, String s) { append(b, s, GREEN        ); }
+    @Override public void appendMethodName      (StringBuilder b, String s) { append(b, s, BRIGHT_GREEN ); }
+    @Override public void appendType            (StringBuilder b, String s) { append(b, s, BRIGHT_BLUE  ); }
+
     @Override public String formatInfo          (String s)  { return format(s, BRIGHT_CYAN  ); }
     @Override public String formatWarning       (String s)  { return format(s, BRIGHT_YELLOW); }
     @Override public String formatError         (String s)  { return format(s, BRIGHT_RED   ); }
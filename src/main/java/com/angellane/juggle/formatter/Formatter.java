@@ -25,6 +25,17 @@ public interface Formatter {
     String formatMethodName(String s);
     String formatType(String s);
 
+    // Appending forms of the above, for building up a whole line of output
+    // without an intermediate String per part.  Formatters that merely wrap
+    // their argument should override these to append it in place.
+
+    default void appendPunctuation  (StringBuilder sb, String s) { sb.append(formatPunctuation(s)); }
+    default void appendKeyword      (StringBuilder sb, String s) { sb.append(formatKeyword(s)); }
+    default void appendPackageName  (StringBuilder sb, String s) { sb.append(formatPackageName(s)); }
+    default void appendClassName    (StringBuilder sb, String s) { sb.append(formatClassName(s)); }
+    default void appendMethodName   (StringBuilder sb, String s) { sb.append(formatMethodName(s)); }
+    default void appendType         (StringBuilder sb, String s) { sb.append(formatType(s)); }
+
     default String formatInfo       (String s)      { return s; }
     default String formatWarning    (String s)      { return s; }
     default String formatError      (String s)      { return s; }
@@ -24,4 +24,11 @@ public class PlaintextFormatter implements Formatter {
     @Override public String formatClassName     (String s) { return s; }
     @Override public String formatMethodName    (String s) { return s; }
     @Override public String formatType          (String s) { return s; }
+
+    @Override public void appendPunctuation     (StringBuilder sb, String s) { sb.append(s); }
+    @Override public void appendKeyword         (StringBuilder sb, String s) { sb.append(s); }
+    @Override public void appendPackageName     (StringBuilder sb, String s) { sb.append(s); }
+    @Override public void appendClassName       (StringBuilder sb, String s) { sb.append(s); }
+    @Override public void appendMethodName      (StringBuilder sb, String s) { sb.append(s); }
+    @Override public void appendType            (StringBuilder sb, String s) { sb.append(s); }
 }
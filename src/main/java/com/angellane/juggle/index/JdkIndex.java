@@ -0,0 +1,237 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import com.angellane.juggle.source.Module;
+
+import java.io.*;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A prebuilt list of the classes that Juggle would search in each of the
+ * JDK's system modules.
+ * <p>
+ * java.base is searched on every run, and listing its contents is a
+ * noticeable part of start-up.  Worse, half of the classes in it are in
+ * packages that aren't exported, or are anonymous or local classes, all
+ * of which are loaded only to be thrown away.  The build generates this
+ * index (by running main()) and ships it in the Juggle jar, so Module can
+ * use it instead of listing the module.
+ * <p>
+ * Class names are kept in the order the module lists them, so results come
+ * out in the same order whether or not the index is used.  The index
+ * records the runtime version it was built from, and is only used by a
+ * runtime of exactly that version.
+ */
+public class JdkIndex {
+    public static final String RESOURCE = "jdk.idx";
+
+    private static final int MAGIC = 0x4a4a4458;   // "JJDX"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String MODULE_INFO  = "module-info.class";
+
+    // javac names anonymous classes Outer$1 and local classes Outer$1Local.
+    // Juggle never shows them, but member classes nested inside them
+    // (Outer$1$Inner) are searched like any other, so only the last part of
+    // the name counts.
+    private static final Pattern UNUTTERABLE = Pattern.compile("\\$[0-9][^$]*$");
+
+    private final String runtimeVersion;
+    private final Map<String, List<String>> classNamesByModule;
+
+    JdkIndex(String runtimeVersion, Map<String, List<String>> classNamesByModule) {
+        this.runtimeVersion = runtimeVersion;
+        this.classNamesByModule = classNamesByModule;
+    }
+
+    public String getRuntimeVersion() {
+        return runtimeVersion;
+    }
+
+    /**
+     * @param moduleName name of a system module
+     * @return names of the classes to search in the module, if it's indexed
+     */
+    public Optional<List<String>> classNames(String moduleName) {
+        return Optional.ofNullable(classNamesByModule.get(moduleName));
+    }
+
+
+    // The index for this runtime ==============================================
+
+    private static final class Holder {
+        static final Optional<JdkIndex> INSTANCE = loadForRuntime();
+    }
+
+    /**
+     * @return the bundled index, if there is one and it was built from the
+     * version of Java we're running on
+     */
+    public static Optional<JdkIndex> forRuntime() {
+        return Holder.INSTANCE;
+    }
+
+    private static Optional<JdkIndex> loadForRuntime() {
+        try (InputStream is = JdkIndex.class.getResourceAsStream(RESOURCE)) {
+            if (is == null)
+                return Optional.empty();
+
+            JdkIndex index = read(is);
+            return index.getRuntimeVersion().equals(Runtime.version().toString())
+                    ? Optional.of(index)
+                    : Optional.empty();
+        }
+        catch (IOException ex) {
+            // A damaged index is no worse than no index
+            return Optional.empty();
+        }
+    }
+
+
+    // Building the index ======================================================
+
+    /**
+     * Lists the classes to search in each of the system modules of the
+     * running JDK: those in unconditionally exported packages, other than
+     * anonymous or local classes.
+     *
+     * @return an index for the running JDK
+     * @throws IOException if a module can't be read
+     */
+    public static JdkIndex ofSystemModules() throws IOException {
+        Map<String, List<String>> classNamesByModule = new TreeMap<>();
+
+        for (ModuleReference ref : ModuleFinder.ofSystem().findAll()) {
+            Set<String> exported = Module.exportedPackages(ref.descriptor());
+
+            try (ModuleReader reader = ref.open()) {
+                classNamesByModule.put(ref.descriptor().name(), reader.list()
+                        .filter(s -> s.endsWith(CLASS_SUFFIX))
+                        .filter(s -> !s.endsWith(MODULE_INFO))
+                        .map(s -> s.substring(0, s.length() - CLASS_SUFFIX.length()))
+                        .filter(s -> s.lastIndexOf('/') != -1
+                                && exported.contains(
+                                        s.substring(0, s.lastIndexOf('/')).replace('/', '.')))
+                        .filter(s -> !UNUTTERABLE.matcher(s).find())
+                        .map(s -> s.replace('/', '.'))
+                        .toList());
+            }
+        }
+
+        return new JdkIndex(Runtime.version().toString(), classNamesByModule);
+    }
+
+    /**
+     * Writes an index of the running JDK.  The build calls this to generate
+     * the index that's packaged as a resource.
+     *
+     * @param args the file to write
+     * @throws IOException if the index can't be built or written
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args[0]);
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        try (OutputStream os = Files.newOutputStream(file)) {
+            ofSystemModules().write(os);
+        }
+    }
+
+
+    // Serialisation ============================================================
+    //
+    // A gzipped stream of: magic, format version, runtime version, then for
+    // each module its name and class names.  Each class name is stored as
+    // the length of the prefix it shares with the one before, followed by
+    // the rest of it.
+
+    public void write(OutputStream os) throws IOException {
+        GZIPOutputStream gz = new GZIPOutputStream(os);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gz));
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(runtimeVersion);
+
+        out.writeInt(classNamesByModule.size());
+        for (Map.Entry<String, List<String>> e : classNamesByModule.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().size());
+
+            String previous = "";
+            for (String name : e.getValue()) {
+                int common = commonPrefixLength(previous, name);
+                out.writeShort(common);
+                out.writeUTF(name.substring(common));
+                previous = name;
+            }
+        }
+
+        out.flush();
+        gz.finish();
+    }
+
+    public static JdkIndex read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(is)));
+
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            throw new IOException("Not a JDK index (or the wrong version)");
+
+        String runtimeVersion = in.readUTF();
+
+        Map<String, List<String>> classNamesByModule = new HashMap<>();
+        for (int m = in.readInt(); m > 0; --m) {
+            String moduleName = in.readUTF();
+            String[] names = new String[in.readInt()];
+
+            String previous = "";
+            for (int i = 0; i < names.length; ++i) {
+                int common = in.readUnsignedShort();
+                if (common > previous.length())
+                    throw new IOException("Corrupt JDK index");
+
+                names[i] = previous.substring(0, common) + in.readUTF();
+                previous = names[i];
+            }
+
+            classNamesByModule.put(moduleName, List.of(names));
+        }
+
+        return new JdkIndex(runtimeVersion, classNamesByModule);
+    }
+
+    static int commonPrefixLength(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i))
+            ++i;
+        return i;
+    }
+}
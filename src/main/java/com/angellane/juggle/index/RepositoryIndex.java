@@ -0,0 +1,208 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The names of the classes in each of a set of JARs, kept on disk between
+ * runs so that JARs needn't be opened again unless they've changed.
+ * <p>
+ * A repository cache holds thousands of JARs, and merely opening each one
+ * to list its entries takes longer than most searches.  Each JAR's listing
+ * is recorded against its size and modification time; if either differs,
+ * the listing is stale and the JAR is read again.
+ * <p>
+ * Which classes a multi-release JAR lists depends on the Java version, so
+ * an index is only used by the runtime version that wrote it.
+ * <p>
+ * Listings may be looked up and recorded concurrently.
+ */
+public class RepositoryIndex {
+    private static final int MAGIC = 0x4a4a5258;   // "JJRX"
+    private static final int FORMAT_VERSION = 2;
+
+    private record Listing(long size, long lastModified, List<String> classNames) {}
+
+    private final Map<String, Listing> listings = new ConcurrentHashMap<>();
+    private volatile boolean changed = false;
+
+    /**
+     * @param jar a JAR file
+     * @param size its current size
+     * @param lastModified its current modification time, in milliseconds
+     * @return the names of its classes, if they're known and up to date
+     */
+    public Optional<List<String>> classNames(Path jar, long size, long lastModified) {
+        Listing l = listings.get(jar.toString());
+        return l != null && l.size() == size && l.lastModified() == lastModified
+                ? Optional.of(l.classNames())
+                : Optional.empty();
+    }
+
+    public void put(Path jar, long size, long lastModified, List<String> classNames) {
+        listings.put(jar.toString(), new Listing(size, lastModified, List.copyOf(classNames)));
+        changed = true;
+    }
+
+    /**
+     * Forgets JARs that are no longer wanted (e.g. because they've been
+     * deleted, or superseded by a newer version).
+     *
+     * @param jars the JARs to keep
+     */
+    public void retainAll(Collection<Path> jars) {
+        Set<String> keep = new HashSet<>();
+        jars.forEach(p -> keep.add(p.toString()));
+        changed |= listings.keySet().retainAll(keep);
+    }
+
+    /**
+     * @return true if the index has changed since it was loaded
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    public int size() {
+        return listings.size();
+    }
+
+
+    // Files ===================================================================
+
+    /**
+     * @param file where the index was saved
+     * @return the index, or an empty one if it's missing or unreadable
+     */
+    public static RepositoryIndex load(Path file) {
+        try (InputStream is = Files.newInputStream(file)) {
+            return read(is);
+        }
+        catch (IOException ex) {
+            // A missing or damaged index just means more JARs to read
+            return new RepositoryIndex();
+        }
+    }
+
+    /**
+     * Saves the index, replacing the file in one step so that a concurrent
+     * run never reads half of it.
+     *
+     * @param file where to save it
+     * @throws IOException if it can't be written
+     */
+    public void save(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                write(os);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(tmp);
+        }
+        changed = false;
+    }
+
+
+    // Serialisation ============================================================
+    //
+    // As for JdkIndex: a gzipped stream of magic, format version, runtime
+    // version, then for each JAR its path, size, modification time and
+    // front-coded class names.
+
+    public void write(OutputStream os) throws IOException {
+        write(os, Runtime.version().toString());
+    }
+
+    void write(OutputStream os, String runtimeVersion) throws IOException {
+        GZIPOutputStream gz = new GZIPOutputStream(os);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gz));
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(runtimeVersion);
+
+        Map<String, Listing> sorted = new TreeMap<>(listings);
+        out.writeInt(sorted.size());
+        for (Map.Entry<String, Listing> e : sorted.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue().size());
+            out.writeLong(e.getValue().lastModified());
+            out.writeInt(e.getValue().classNames().size());
+
+            String previous = "";
+            for (String name : e.getValue().classNames()) {
+                int common = JdkIndex.commonPrefixLength(previous, name);
+                out.writeShort(common);
+                out.writeUTF(name.substring(common));
+                previous = name;
+            }
+        }
+
+        out.flush();
+        gz.finish();
+    }
+
+    public static RepositoryIndex read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(is)));
+
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            throw new IOException("Not a repository index (or the wrong version)");
+
+        // Listings written by another runtime may be wrong for this one
+        if (!in.readUTF().equals(Runtime.version().toString()))
+            return new RepositoryIndex();
+
+        RepositoryIndex index = new RepositoryIndex();
+        for (int j = in.readInt(); j > 0; --j) {
+            String jar = in.readUTF();
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            String[] names = new String[in.readInt()];
+
+            String previous = "";
+            for (int i = 0; i < names.length; ++i) {
+                int common = in.readUnsignedShort();
+                if (common > previous.length())
+                    throw new IOException("Corrupt repository index");
+
+                names[i] = previous.substring(0, common) + in.readUTF();
+                previous = names[i];
+            }
+
+            index.listings.put(jar, new Listing(size, lastModified, List.of(names)));
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import com.angellane.juggle.source.RepositorySource;
+import com.angellane.juggle.source.Source;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The output of previous searches, kept on disk so that a search that's
+ * repeated can be answered without loading any classes.
+ * <p>
+ * Each result is kept in a file of its own, named by a key that's a digest
+ * of everything that went into it: the query, the options that affect the
+ * output, and a fingerprint of the classes searched.  When a JAR changes,
+ * so does the fingerprint, and results from the old JAR are simply never
+ * asked for again.  Only the most recently used results are kept; reading
+ * a result counts as using it.
+ * <p>
+ * Any number of runs may share a cache.  Results are written in one step,
+ * and a result that can't be read is treated as missing.
+ */
+public class ResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final String SUFFIX = ".out";
+
+    private final Path dir;
+    private final int maxEntries;
+
+    /**
+     * @param dir where to keep results
+     * @param maxEntries how many results to keep
+     */
+    public ResultCache(Path dir, int maxEntries) {
+        this.dir = dir;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the cache directory, beside the repository index
+     */
+    public static Path defaultDirectory() {
+        return RepositorySource.defaultIndexFile().resolveSibling("results");
+    }
+
+    /**
+     * @param parts everything that determines a result
+     * @return a key for the result
+     */
+    public static String key(List<String> parts) {
+        MessageDigest md = sha256();
+        parts.forEach(part -> {
+            md.update(part.getBytes(StandardCharsets.UTF_8));
+            md.update((byte)0);
+        });
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * Identifies the classes being searched: the Java runtime, plus, for
+     * each source in turn, the modules it searches and the path, size and
+     * modification time of each file its classes are read from.  Source
+     * order counts, since a class in more than one source is loaded from
+     * the first.  Reading every JAR to hash its contents would take longer
+     * than many searches, so, as for RepositoryIndex, size and time have
+     * to do.
+     *
+     * @param sources the configured sources, in search order
+     * @return a fingerprint that changes when the sources or their files do
+     */
+    public static String fingerprint(List<Source> sources) {
+        List<String> parts = new ArrayList<>();
+        parts.add(Runtime.version().toString());
+        parts.add(System.getProperty("java.home"));
+
+        for (Source source : sources) {
+            parts.add("source " + source.getClass().getSimpleName());
+            source.moduleNames().forEach(name -> parts.add("module " + name));
+            source.files()
+                    .map(Path::toAbsolutePath)
+                    .distinct()
+                    .sorted()
+                    .forEach(p -> parts.add(stamp(p)));
+        }
+
+        return key(parts);
+    }
+
+    private static String stamp(Path p) {
+        try {
+            BasicFileAttributes attrs =
+                    Files.readAttributes(p, BasicFileAttributes.class);
+            return "%s %d %d".formatted(p, attrs.size(),
+                    attrs.lastModifiedTime().toMillis());
+        }
+        catch (IOException ex) {
+            return "%s missing".formatted(p);
+        }
+    }
+
+    /**
+     * @param key a key made by key()
+     * @return the result recorded for it, if there is one
+     */
+    public Optional<byte[]> get(String key) {
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            byte[] result = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(result);
+        }
+        catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Records a result, then forgets the least recently used ones if there
+     * are too many.
+     *
+     * @param key a key made by key()
+     * @param result the result
+     * @throws IOException if the result can't be written
+     */
+    public void put(String key, byte[] result) throws IOException {
+        Files.createDirectories(dir);
+
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        try {
+            Files.write(tmp, result);
+            Files.move(tmp, dir.resolve(key + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        evict();
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(dir)) {
+            entries = files.filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .toList();
+        }
+
+        if (entries.size() <= maxEntries)
+            return;
+
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        for (Path p : entries) {
+            try {
+                lastUsed.put(p, Files.getLastModifiedTime(p));
+            }
+            catch (IOException ex) {
+                // Another run got there first
+            }
+        }
+
+        List<Path> oldestFirst = lastUsed.keySet().stream()
+                .sorted(Comparator.comparing(lastUsed::get))
+                .toList();
+        for (Path p : oldestFirst.subList(0, Math.max(0, oldestFirst.size() - maxEntries)))
+            Files.deleteIfExists(p);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A reverse index of the type hierarchy of the classes being searched.
+ * <p>
+ * Class objects only know their supertypes, so answering "what extends X?"
+ * would otherwise mean walking up from every class being searched.  This
+ * index records, for every type encountered while walking up from the
+ * searched classes, which types directly extend or implement it.  That
+ * includes types that aren't themselves being searched, so that (say) a
+ * searched class whose superclass is an unexported JDK class is still found
+ * as a subtype of that JDK class's public supertypes.
+ */
+public class TypeHierarchy {
+    private final Set<Class<?>> types;
+    private final Map<Class<?>, List<Class<?>>> directSubtypes = new HashMap<>();
+
+    public TypeHierarchy(Collection<Class<?>> types) {
+        this.types = Collections.unmodifiableSet(new LinkedHashSet<>(types));
+
+        Set<Class<?>> visited = new HashSet<>();
+        this.types.forEach(c -> addEdgesAbove(c, visited));
+    }
+
+    private void addEdgesAbove(Class<?> c, Set<Class<?>> visited) {
+        if (!visited.add(c))
+            return;
+
+        directSupertypes(c).forEach(s -> {
+            directSubtypes.computeIfAbsent(s, k -> new ArrayList<>()).add(c);
+            addEdgesAbove(s, visited);
+        });
+    }
+
+    private static Stream<Class<?>> directSupertypes(Class<?> c) {
+        return Stream.concat(
+                Stream.ofNullable(c.getSuperclass()),
+                Arrays.stream(c.getInterfaces())
+        );
+    }
+
+    /**
+     * @return the classes being searched, in the order they were enumerated
+     */
+    public Set<Class<?>> types() {
+        return types;
+    }
+
+    /**
+     * @param c a type
+     * @return all known types that directly extend or implement c, whether
+     * or not they're being searched
+     */
+    public List<Class<?>> directSubtypesOf(Class<?> c) {
+        return Collections.unmodifiableList(
+                directSubtypes.getOrDefault(c, List.of()));
+    }
+
+    /**
+     * @param c a type
+     * @return the searched types that are proper subtypes of c
+     */
+    public Set<Class<?>> subtypesOf(Class<?> c) {
+        Set<Class<?>> seen = new HashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>(directSubtypesOf(c));
+
+        while (!pending.isEmpty()) {
+            Class<?> sub = pending.pop();
+            if (seen.add(sub))
+                pending.addAll(directSubtypesOf(sub));
+        }
+
+        seen.retainAll(types);
+        return seen;
+    }
+
+    /**
+     * @param c a type
+     * @return the searched types that are c or one of its supertypes
+     */
+    public Set<Class<?>> supertypesOf(Class<?> c) {
+        Set<Class<?>> seen = new HashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>(List.of(c));
+
+        while (!pending.isEmpty()) {
+            Class<?> sup = pending.pop();
+            if (seen.add(sup))
+                directSupertypes(sup).forEach(pending::add);
+        }
+
+        seen.retainAll(types);
+        return seen;
+    }
+}
@@ -21,10 +21,11 @@ import com.angellane.juggle.candidate.MemberCandidate;
 import com.angellane.juggle.match.TypeMatcher;
 
 import java.lang.reflect.Method;
-import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static com.angellane.juggle.match.TypeMatcher.EXACT_MATCH;
@@ -63,6 +64,25 @@ public final class MemberQuery extends Query<MemberCandidate> {
         );
     }
 
+    @Override
+    public boolean refines(Query<?> other) {
+        return super.refines(other)
+                && other instanceof MemberQuery q
+                && sameOrUnconstrained(isDefault,  q.isDefault)
+                && sameOrUnconstrained(returnType, q.returnType)
+                && sameOrUnconstrained(exceptions, q.exceptions)
+                ;
+    }
+
+    @Override
+    protected Map<String, Object> canonicalFields() {
+        Map<String, Object> fields = super.canonicalFields();
+        fields.put("isDefault",  isDefault);
+        fields.put("returnType", returnType);
+        fields.put("exceptions", exceptions);
+        return fields;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
@@ -95,16 +115,18 @@ public final class MemberQuery extends Query<MemberCandidate> {
 
     @Override
     public OptionalInt scoreCandidate(TypeMatcher tm, MemberCandidate cm) {
-        return totalScore(List.of(
-                scoreAnnotations(cm.annotationTypes())
-                , scoreAccessibility(cm.accessibility())
-                , scoreModifiers(cm.otherModifiers())
-                , scoreIsDefault(cm)
-                , scoreReturn(tm, cm.returnType())
-                , scoreName(cm.simpleName(), cm.canonicalName())
-                , scoreParams(tm, cm.params())
-                , scoreExceptions(tm, cm.throwTypes())
-        ));
+        // Cheapest checks first; the candidate only reflects on annotations,
+        // parameters and exceptions if we get as far as asking for them.
+        return totalScoreLazily(
+                () -> scoreAccessibility(cm.accessibility())
+                , () -> scoreModifiers(cm.otherModifiers())
+                , () -> scoreIsDefault(cm)
+                , () -> scoreReturn(tm, cm.returnType())
+                , () -> scoreName(cm.simpleName(), cm.canonicalName())
+                , () -> scoreParams(tm, cm::params)
+                , () -> scoreAnnotations(cm::annotationTypes)
+                , () -> scoreExceptions(tm, cm::throwTypes)
+        );
     }
 
     private OptionalInt scoreIsDefault(MemberCandidate cm) {
@@ -123,6 +145,13 @@ public final class MemberQuery extends Query<MemberCandidate> {
             return tm.scoreTypeMatch(this.returnType, returnType);
     }
 
+    OptionalInt scoreExceptions(TypeMatcher tm,
+                                Supplier<Set<Class<?>>> candidateExceptions) {
+        return this.exceptions == null
+                ? EXACT_MATCH
+                : scoreExceptions(tm, candidateExceptions.get());
+    }
+
     OptionalInt scoreExceptions(TypeMatcher tm,
                                 Set<Class<?>> candidateExceptions) {
         // Need to check both ways:
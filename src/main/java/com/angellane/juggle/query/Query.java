@@ -25,6 +25,7 @@ import com.angellane.juggle.match.TypeMatcher;
 import com.angellane.juggle.util.NegatablePattern;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -100,6 +101,102 @@ public abstract sealed class Query<C extends Candidate>
     }
 
 
+    /**
+     * Does this query only match candidates that the other query matches
+     * too?  If so, searching the other query's matches for this one finds
+     * everything a full search would.
+     * <p>
+     * Only simple cases are recognised: each attribute must be the same in
+     * both queries, unconstrained in the other, or obviously narrower in
+     * this one (more annotations, more modifiers, a longer literal name).
+     * So false means "not necessarily".
+     *
+     * @param other a previous query
+     * @return true iff every match of this query is a match of other
+     */
+    public boolean refines(Query<?> other) {
+        return getClass() == other.getClass()
+                && (other.annotationTypes == null
+                    || annotationTypes != null
+                       && annotationTypes.containsAll(other.annotationTypes))
+                && (other.accessibility == null
+                    || accessibility != null
+                       && accessibility.isAtLeastAsAccessibleAsOther(other.accessibility))
+                && refinesModifiers(other)
+                && (other.declarationPattern == null
+                    || declarationPattern != null
+                       && declarationPattern.refines(other.declarationPattern))
+                && sameOrUnconstrained(params, other.params)
+                // Candidates are only built with parameter annotations when
+                // the query that found them needed them
+                && (!needsParamAnnotations() || other.needsParamAnnotations());
+    }
+
+    private boolean refinesModifiers(Query<?> other) {
+        final int mask      = modifierMask       & OTHER_MODIFIERS_MASK;
+        final int otherMask = other.modifierMask & OTHER_MODIFIERS_MASK;
+
+        // Every modifier the other query cares about, we care about the same
+        return (otherMask & ~mask) == 0
+                && (otherMask & modifiers) == (otherMask & other.modifiers);
+    }
+
+    protected static boolean sameOrUnconstrained(Object mine, Object theirs) {
+        return theirs == null || theirs.equals(mine);
+    }
+
+
+    /**
+     * Describes this query so that equal queries get the same description in
+     * every run.  toString() can't be used for that: the order of elements in
+     * a Set (of annotation types, say) varies from run to run, and patterns
+     * are shown without their flags.  Used to key persistent data.
+     *
+     * @return a canonical description of this query
+     */
+    public String canonicalForm() {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        canonicalFields().forEach((name, value) ->
+                sb.append(' ').append(name).append('=').append(canonical(value)));
+        return sb.toString();
+    }
+
+    /**
+     * @return the fields of this query that canonicalForm() describes, by name
+     */
+    protected Map<String, Object> canonicalFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("annotationTypes",    annotationTypes);
+        fields.put("accessibility",      accessibility);
+        fields.put("modifierMask",       modifierMask);
+        fields.put("modifiers",          modifiers);
+        fields.put("declarationPattern", declarationPattern);
+        fields.put("params",             params);
+        return fields;
+    }
+
+    private static String canonical(Object o) {
+        if (o instanceof Class<?> c)
+            return c.getName();
+        else if (o instanceof Set<?> s)
+            return s.stream().map(Query::canonical).sorted().toList().toString();
+        else if (o instanceof List<?> l)
+            return l.stream().map(Query::canonical).toList().toString();
+        else if (o instanceof NegatablePattern p)
+            return "%s/%s/%d".formatted(p.positiveMatch() ? "" : "!",
+                    p.pattern().pattern(), p.pattern().flags());
+        else if (o instanceof BoundedType bt)
+            return "(%s,%s)".formatted(canonical(bt.upperBound()),
+                    canonical(bt.lowerBound()));
+        else if (o instanceof SingleParam sp)
+            return "(%s,%d,%d,%s,%s)".formatted(canonical(sp.annotations()),
+                    sp.modifiers(), sp.modifiersMask(),
+                    canonical(sp.paramType()), canonical(sp.paramName()));
+        else
+            return String.valueOf(o);
+    }
+
+
     // SETTERS ================================================================
 
     public void setAnnotationTypes(Set<Class<?>> annotationTypes) {
@@ -132,6 +229,19 @@ public abstract sealed class Query<C extends Candidate>
 
     public Accessibility getAccessibility() { return this.accessibility; }
 
+    /**
+     * Will this query look at the annotations of individual parameters (or
+     * record components)?  Candidate factories use this to avoid parsing
+     * parameter annotations when nobody is going to read them.
+     *
+     * @return true iff some parameter in the query specifies annotations
+     */
+    public boolean needsParamAnnotations() {
+        return params != null && params.stream()
+                .anyMatch(ps -> ps instanceof SingleParam sp
+                        && sp.annotations() != null);
+    }
+
 
     // MATCHERS ===============================================================
 
@@ -184,8 +294,34 @@ public abstract sealed class Query<C extends Candidate>
                 );
     }
 
-    protected OptionalInt scoreAnnotations(Set<Class<?>> annotationTypes) {
-        return matchesAnnotations(annotationTypes)
+    /**
+     * Like totalScore, but each component score is only computed when
+     * needed.  Components are evaluated in order, and evaluation stops at
+     * the first one that doesn't match.  This means that candidate
+     * attributes used only by later components are never materialised for
+     * candidates that fail earlier ones.
+     *
+     * @param scores suppliers of the component scores to add up
+     * @return Optional.empty() if any score is empty, or the sum otherwise.
+     */
+    @SafeVarargs
+    public static OptionalInt totalScoreLazily(
+            Supplier<OptionalInt>... scores
+    ) {
+        int total = 0;
+        for (Supplier<OptionalInt> s : scores) {
+            OptionalInt score = s.get();
+            if (score.isEmpty())
+                return NO_MATCH;
+            total += score.getAsInt();
+        }
+        return OptionalInt.of(total);
+    }
+
+    protected OptionalInt scoreAnnotations(
+            Supplier<Set<Class<?>>> annotationTypes) {
+        return this.annotationTypes == null
+                || matchesAnnotations(annotationTypes.get())
                 ? OptionalInt.of(0) : OptionalInt.empty();
     }
 
@@ -204,6 +340,13 @@ public abstract sealed class Query<C extends Candidate>
                 ? OptionalInt.of(0) : OptionalInt.empty();
     }
 
+    protected OptionalInt scoreParams(
+            TypeMatcher tm, Supplier<List<Param>> candidateParams) {
+        return params == null
+                ? EXACT_MATCH
+                : scoreParams(tm, candidateParams.get());
+    }
+
     protected OptionalInt scoreParams(
             TypeMatcher tm, List<Param> candidateParams) {
         if (params == null)
@@ -19,12 +19,14 @@ package com.angellane.juggle.query;
 
 import com.angellane.juggle.candidate.Param;
 import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.index.TypeHierarchy;
 import com.angellane.juggle.match.TypeMatcher;
 import com.angellane.juggle.util.ClassUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.RecordComponent;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -71,6 +73,33 @@ public final class TypeQuery extends Query<TypeCandidate> {
         );
     }
 
+    @Override
+    public boolean refines(Query<?> other) {
+        return super.refines(other)
+                && other instanceof TypeQuery q
+                && sameOrUnconstrained(flavour,           q.flavour)
+                && sameOrUnconstrained(supertype,         q.supertype)
+                && (q.superInterfaces == null
+                    || superInterfaces != null
+                       && superInterfaces.containsAll(q.superInterfaces))
+                && sameOrUnconstrained(subtype,           q.subtype)
+                && sameOrUnconstrained(isSealed,          q.isSealed)
+                && sameOrUnconstrained(permittedSubtypes, q.permittedSubtypes)
+                ;
+    }
+
+    @Override
+    protected Map<String, Object> canonicalFields() {
+        Map<String, Object> fields = super.canonicalFields();
+        fields.put("flavour",           flavour);
+        fields.put("supertype",         supertype);
+        fields.put("superInterfaces",   superInterfaces);
+        fields.put("subtype",           subtype);
+        fields.put("isSealed",          isSealed);
+        fields.put("permittedSubtypes", permittedSubtypes);
+        return fields;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{"
@@ -113,19 +142,64 @@ public final class TypeQuery extends Query<TypeCandidate> {
 
     @Override
     public OptionalInt scoreCandidate(TypeMatcher tm, TypeCandidate ct) {
-        return totalScore(List.of(
-                scoreAnnotations(ct.annotationTypes())
-                , scoreAccessibility(ct.accessibility())
-                , scoreModifiers(ct.otherModifiers())
-                , scoreName(ct.simpleName(), ct.canonicalName())
-                , scoreFlavour(ct.flavour())
-                , scoreSupertype(tm, ct.clazz())
-                , scoreSuperInterfaces(tm, ct.clazz())
-                , scoreSubtype(tm, ct.clazz())
-                , scoreIsSealed(ct.clazz())
-                , scorePermittedSubtypes(ct.permittedSubtypes())
-                , scoreRecordComponents(tm, ct.recordComponents())
-        ));
+        // As with MemberQuery, cheapest checks first
+        return totalScoreLazily(
+                () -> scoreAccessibility(ct.accessibility())
+                , () -> scoreModifiers(ct.otherModifiers())
+                , () -> scoreFlavour(ct.flavour())
+                , () -> scoreName(ct.simpleName(), ct.canonicalName())
+                , () -> scoreSupertype(tm, ct.clazz())
+                , () -> scoreSuperInterfaces(tm, ct.clazz())
+                , () -> scoreSubtype(tm, ct.clazz())
+                , () -> scoreIsSealed(ct.clazz())
+                , () -> scoreAnnotations(ct::annotationTypes)
+                , () -> scorePermittedSubtypes(ct::permittedSubtypes)
+                , () -> scoreRecordComponents(tm, ct::recordComponents)
+        );
+    }
+
+    /**
+     * @return true iff this query has an extends, implements or super clause
+     */
+    public boolean constrainsHierarchy() {
+        return supertype != null || superInterfaces != null || subtype != null;
+    }
+
+    /**
+     * Uses the type hierarchy to enumerate only those classes that could
+     * possibly satisfy this query's extends, implements and super clauses.
+     * <p>
+     * A candidate matching `extends X` or `implements X` (with or without
+     * wildcards) has a direct supertype that is X or one of its subtypes,
+     * so it must be a proper subtype of X.  A candidate matching `super X`
+     * must be X or one of its supertypes.  The classes returned are a
+     * superset of the matches; they still need to be scored.
+     *
+     * @param h the type hierarchy of the classes being searched
+     * @return the classes worth scoring, in enumeration order
+     */
+    public Stream<Class<?>> candidateClasses(TypeHierarchy h) {
+        List<Set<Class<?>>> constraints = new ArrayList<>();
+
+        Stream.concat(Stream.ofNullable(supertype),
+                        superInterfaces == null
+                                ? Stream.empty()
+                                : superInterfaces.stream())
+                .map(BoundedType::upperBound)
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .map(h::subtypesOf)
+                .forEach(constraints::add);
+
+        if (subtype != null && subtype.lowerBound() != null)
+            constraints.add(h.supertypesOf(subtype.lowerBound()));
+
+        // Filter rather than enumerate the constraint sets themselves, so
+        // that classes are still visited in a deterministic order
+        return constraints.isEmpty()
+                ? h.types().stream()
+                : h.types().stream().filter(c -> constraints.stream()
+                        .allMatch(s -> s.contains(c)));
     }
 
     public void setSupertype(BoundedType supertype) {
@@ -216,19 +290,25 @@ public final class TypeQuery extends Query<TypeCandidate> {
                 ? EXACT_MATCH : NO_MATCH;
     }
 
-    private OptionalInt scorePermittedSubtypes(Set<Class<?>> cs) {
+    private OptionalInt scorePermittedSubtypes(Supplier<Set<Class<?>>> cs) {
         return permittedSubtypes == null
                 || permittedSubtypes.stream()
-                .allMatch(bt -> cs.stream().anyMatch(bt::matchesClass))
+                .allMatch(bt -> cs.get().stream().anyMatch(bt::matchesClass))
                 ? EXACT_MATCH : NO_MATCH;
     }
 
-    OptionalInt scoreRecordComponents(TypeMatcher tm, List<RecordComponent> rcs) {
-        List<Param> params = rcs.stream().map(
-                rc -> new Param(Arrays.stream(rc.getAnnotations())
-                            .map(Annotation::annotationType)
-                            .collect(Collectors.toSet()
-                            ),
+    OptionalInt scoreRecordComponents(TypeMatcher tm,
+                                      Supplier<List<RecordComponent>> rcs) {
+        if (params == null)
+            return EXACT_MATCH;
+
+        boolean withAnnotations = needsParamAnnotations();
+        List<Param> params = rcs.get().stream().map(
+                rc -> new Param(withAnnotations
+                            ? Arrays.stream(rc.getAnnotations())
+                                .map(Annotation::annotationType)
+                                .collect(Collectors.toSet())
+                            : Set.of(),
                         0,
                         rc.getType(),
                         rc.getName()
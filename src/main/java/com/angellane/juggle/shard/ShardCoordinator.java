@@ -0,0 +1,116 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.shard;
+
+import com.angellane.juggle.JuggleError;
+import com.angellane.juggle.Main;
+import com.angellane.juggle.util.KWayMerge;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs a search across several worker JVMs.
+ * <p>
+ * Each worker is started with the same command-line arguments as this
+ * process plus a (hidden) option naming its shard.  Workers configure all
+ * the sources but only load and match their own share of the classes, so
+ * no single JVM has to hold every class in memory.  Each writes its
+ * matches, already sorted, as ShardRecords on its standard output; the
+ * coordinator merges those streams and passes on the rendered lines.
+ * Workers' standard error is passed straight through, so warnings still
+ * reach the user.
+ */
+public class ShardCoordinator {
+    public static final String SHARD_OPTION = "--shard";
+
+    private final List<String> args;
+    private final int shardCount;
+    private final Comparator<ShardRecord> order;
+
+    /**
+     * @param args the command-line arguments each worker should be given
+     * @param shardCount the number of worker processes to run
+     * @param order the order in which workers sort their records
+     */
+    public ShardCoordinator(List<String> args, int shardCount,
+                            Comparator<ShardRecord> order) {
+        this.args = List.copyOf(args);
+        this.shardCount = shardCount;
+        this.order = order;
+    }
+
+    List<String> workerCommand(int shardIndex) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(Main.class.getName());
+        cmd.addAll(args);
+        cmd.add("%s=%d/%d".formatted(SHARD_OPTION, shardIndex, shardCount));
+        return cmd;
+    }
+
+    public void run(Consumer<String> out) {
+        List<Process> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < shardCount; ++i)
+                workers.add(new ProcessBuilder(workerCommand(i))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start());
+
+            // A worker whose pipe fills up just waits for the merge to get
+            // round to it; nothing the coordinator waits for depends on it.
+            List<Iterator<ShardRecord>> inputs = workers.stream()
+                    .map(p -> records(p.inputReader()))
+                    .toList();
+
+            KWayMerge.merge(inputs, order)
+                    .forEachRemaining(r -> out.accept(r.output()));
+
+            for (int i = 0; i < workers.size(); ++i) {
+                int status = workers.get(i).waitFor();
+                if (status != 0)
+                    throw new JuggleError("Shard %d of %d failed with exit status %d"
+                            .formatted(i, shardCount, status));
+            }
+        }
+        catch (IOException | UncheckedIOException ex) {
+            throw new JuggleError("Couldn't run shard worker: %s"
+                    .formatted(ex.getLocalizedMessage()));
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JuggleError("Interrupted waiting for shard workers");
+        }
+        finally {
+            workers.forEach(Process::destroy);
+        }
+    }
+
+    private static Iterator<ShardRecord> records(BufferedReader reader) {
+        return reader.lines().map(ShardRecord::decode).iterator();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.shard;
+
+import com.angellane.juggle.JuggleError;
+import com.angellane.juggle.SortCriteria;
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.match.Match;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A match as passed from a shard worker process back to the coordinator:
+ * the keys needed to sort it alongside matches from other shards, and the
+ * line of output that the worker rendered for it.
+ * <p>
+ * The coordinator never loads the classes itself, so the keys have to
+ * stand in for the comparators of SortCriteria.  All of them are exact
+ * apart from hierarchy: ByHierarchy compares pairs of classes, so here each
+ * type is instead keyed by how many supertypes it has.  That still lists
+ * every type after its supertypes, but may order unrelated types
+ * differently.
+ *
+ * @param score         the match's score
+ * @param depth         the number of supertypes of a type candidate; 0 for members
+ * @param accessibility the candidate's accessibility
+ * @param packageRank   position of the candidate's package in the imports, or
+ *                      Integer.MAX_VALUE if it isn't imported
+ * @param packageName   the candidate's package name
+ * @param simpleName    the candidate's simple name
+ * @param text          the candidate's toString()
+ * @param output        the rendered line of output
+ */
+public record ShardRecord(
+        int             score,
+        int             depth,
+        Accessibility   accessibility,
+        int             packageRank,
+        String          packageName,
+        String          simpleName,
+        String          text,
+        String          output
+) {
+    public static ShardRecord of(Match<?, ?> match,
+                                 List<String> importedPackageNames,
+                                 Function<Match<?, ?>, String> renderer) {
+        Candidate c = match.candidate();
+        int index = importedPackageNames.indexOf(c.packageName());
+
+        return new ShardRecord(
+                match.score(),
+                c instanceof TypeCandidate ct ? countSupertypes(ct.clazz()) : 0,
+                c.accessibility(),
+                index == -1 ? Integer.MAX_VALUE : index,
+                c.packageName(),
+                c.simpleName(),
+                c.toString(),
+                renderer.apply(match)
+        );
+    }
+
+    static int countSupertypes(Class<?> c) {
+        Set<Class<?>> seen = new HashSet<>();
+        Deque<Class<?>> todo = new ArrayDeque<>(List.of(c));
+
+        while (!todo.isEmpty()) {
+            Class<?> t = todo.pop();
+            if (t.getSuperclass() != null && seen.add(t.getSuperclass()))
+                todo.push(t.getSuperclass());
+            for (Class<?> i : t.getInterfaces())
+                if (seen.add(i))
+                    todo.push(i);
+        }
+
+        return seen.size();
+    }
+
+    /**
+     * Builds the ordering that corresponds to a list of sort criteria.
+     *
+     * @param criteria the sort criteria, most significant first
+     * @return a comparator over ShardRecords
+     */
+    public static Comparator<ShardRecord> comparator(List<SortCriteria> criteria) {
+        return criteria.stream()
+                .map(ShardRecord::comparator)
+                .reduce(Comparator::thenComparing)
+                .orElse((r1, r2) -> 0);
+    }
+
+    private static Comparator<ShardRecord> comparator(SortCriteria criteria) {
+        return switch (criteria) {
+            case SCORE      -> Comparator.comparingInt(ShardRecord::score);
+            // Not quite ByHierarchy, which leaves unrelated types unordered
+            // for the next criterion; this orders every pair by depth
+            case HIERARCHY  -> Comparator.comparingInt(ShardRecord::depth);
+            case ACCESS     -> Comparator.comparing(ShardRecord::accessibility)
+                                         .reversed();
+            case PACKAGE    -> Comparator.comparingInt(ShardRecord::packageRank)
+                                         .thenComparing(ShardRecord::packageName);
+            case TEXT       -> Comparator.comparing(ShardRecord::text);
+            case NAME       -> Comparator.comparing(ShardRecord::simpleName);
+        };
+    }
+
+
+    // Serialisation: one line per record, fields separated by tabs ==========
+
+    private static final char SEPARATOR = '\t';
+
+    public String encode() {
+        return String.join(String.valueOf(SEPARATOR),
+                Integer.toString(score),
+                Integer.toString(depth),
+                accessibility.name(),
+                Integer.toString(packageRank),
+                escape(packageName),
+                escape(simpleName),
+                escape(text),
+                escape(output));
+    }
+
+    public static ShardRecord decode(String line) {
+        String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != 8)
+            throw new JuggleError("Malformed shard record: %s".formatted(line));
+
+        try {
+            return new ShardRecord(
+                    Integer.parseInt(fields[0]),
+                    Integer.parseInt(fields[1]),
+                    Accessibility.valueOf(fields[2]),
+                    Integer.parseInt(fields[3]),
+                    unescape(fields[4]),
+                    unescape(fields[5]),
+                    unescape(fields[6]),
+                    unescape(fields[7]));
+        }
+        catch (IllegalArgumentException ex) {
+            throw new JuggleError("Malformed shard record: %s".formatted(line));
+        }
+    }
+
+    static String escape(String s) {
+        StringBuilder ret = new StringBuilder(s.length());
+        for (char ch : s.toCharArray())
+            switch (ch) {
+                case '\\'   -> ret.append("\\\\");
+                case '\t'   -> ret.append("\\t");
+                case '\n'   -> ret.append("\\n");
+                case '\r'   -> ret.append("\\r");
+                default     -> ret.append(ch);
+            }
+        return ret.toString();
+    }
+
+    static String unescape(String s) {
+        StringBuilder ret = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); ++i) {
+            char ch = s.charAt(i);
+            if (ch != '\\' || i + 1 == s.length())
+                ret.append(ch);
+            else
+                ret.append(switch (s.charAt(++i)) {
+                    case 't'    -> '\t';
+                    case 'n'    -> '\n';
+                    case 'r'    -> '\r';
+                    default     -> s.charAt(i);
+                });
+        }
+        return ret.toString();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the output of BinaryOutput: for clients that run Juggle with
+ * {@code -f binary} and read its standard output.
+ */
+public class BinaryDecoder implements Closeable {
+    private final DataInputStream in;
+    private boolean headerRead = false;
+
+    public BinaryDecoder(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Reads the results of the next search.
+     *
+     * @return the results, or empty at the end of the stream
+     * @throws IOException if the stream can't be read or isn't valid
+     */
+    public Optional<List<BinaryResult>> nextResponse() throws IOException {
+        if (!readHeader())
+            return Optional.empty();
+
+        List<BinaryResult> results = new ArrayList<>();
+        boolean last;
+        do {
+            int length;
+            try {
+                length = in.readInt();
+            }
+            catch (EOFException ex) {
+                if (results.isEmpty())
+                    return Optional.empty();
+                throw ex;       // Part way through a response
+            }
+
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            last = readFrame(frame, results);
+        } while (!last);
+
+        return Optional.of(results);
+    }
+
+    private boolean readHeader() throws IOException {
+        if (headerRead)
+            return true;
+
+        int magic;
+        try {
+            magic = in.readInt();
+        }
+        catch (EOFException ex) {
+            return false;       // Nothing at all was written
+        }
+        if (magic != BinaryOutput.MAGIC)
+            throw new IOException("Not Juggle binary output");
+
+        int version = in.readUnsignedByte();
+        if (version != BinaryOutput.VERSION)
+            throw new IOException("Unsupported version of Juggle binary output: " + version);
+
+        headerRead = true;
+        return true;
+    }
+
+    // Returns whether this was the last frame of a response
+    private static boolean readFrame(byte[] frame, List<BinaryResult> results)
+            throws IOException {
+        Reader r = new Reader(frame);
+        int flags = r.readByte();
+
+        String[] strings = new String[r.readVarint()];
+        for (int i = 0; i < strings.length; ++i)
+            strings[i] = r.readUtf8(r.readVarint());
+
+        for (int n = r.readVarint(); n > 0; --n) {
+            int kind = r.readByte();
+            if (kind >= BinaryResult.Kind.values().length)
+                throw new IOException("Unknown kind of result: " + kind);
+
+            results.add(new BinaryResult(
+                    BinaryResult.Kind.values()[kind],
+                    r.readVarint(),
+                    r.readVarint() - 1,
+                    r.readString(strings),
+                    r.readString(strings),
+                    r.readString(strings),
+                    r.readStrings(strings),
+                    r.readStrings(strings),
+                    r.readStrings(strings)));
+        }
+
+        if (r.pos != frame.length)
+            throw new IOException("Trailing bytes in frame");
+
+        return (flags & BinaryOutput.LAST_FRAME) != 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos = 0;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() throws IOException {
+            if (pos >= bytes.length)
+                throw new EOFException("Truncated frame");
+            return bytes[pos++] & 0xff;
+        }
+
+        int readVarint() throws IOException {
+            int ret = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                ret |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0)
+                    return ret;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        String readUtf8(int length) throws IOException {
+            if (length < 0 || length > bytes.length - pos)
+                throw new EOFException("Truncated frame");
+            String s = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        String readString(String[] strings) throws IOException {
+            int id = readVarint();
+            if (id == 0)
+                return null;
+            if (id > strings.length)
+                throw new IOException("Bad string index: " + id);
+            return strings[id - 1];
+        }
+
+        List<String> readStrings(String[] strings) throws IOException {
+            int n = readVarint();
+            List<String> ret = new ArrayList<>(Math.min(n, bytes.length));
+            for (int i = 0; i < n; ++i)
+                ret.add(readString(strings));
+            return List.copyOf(ret);
+        }
+    }
+}
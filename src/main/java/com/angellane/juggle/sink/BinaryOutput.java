@@ -0,0 +1,268 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.formatter.PlaintextFormatter;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes results in a compact binary form, for programs that consume a
+ * great many of them.  BinaryDecoder reads it back as BinaryResults.
+ * <p>
+ * The stream starts with MAGIC and VERSION, and is followed by frames,
+ * each of which is a big-endian int length and that many bytes of:
+ * <ul>
+ *     <li>a flags byte; LAST_FRAME marks the end of a search's results</li>
+ *     <li>the number of strings, then each as a length and UTF-8 bytes</li>
+ *     <li>the number of results, then each as: kind ordinal, modifiers,
+ *         score + 1, owner, name, type, then counts and lists of type
+ *         parameters, parameters and exceptions</li>
+ * </ul>
+ * Other than the flags and kind bytes, all numbers are unsigned LEB128
+ * varints.  Strings within results are indexes into the frame's table of
+ * strings, plus one so that zero can stand for null.  Type names repeat a
+ * lot, so each is written only once per frame.
+ * <p>
+ * A search's results are sent as one frame, unless there are so many that
+ * they're split into several to bound memory use.
+ */
+public class BinaryOutput implements Sink {
+    public static final int MAGIC = 0x4a554742;     // "JUGB"
+    public static final int VERSION = 1;
+    public static final int LAST_FRAME = 0x01;
+
+    static final int MAX_FRAME_RESULTS = 8192;
+
+    private final OutputStream out;
+    private boolean headerWritten = false;
+    private boolean autoFlush = false;
+
+    // The frame being built
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream resultBytes = new ByteArrayOutputStream();
+    private int resultCount = 0;
+
+    // Renders type names, with no imports so that they're all qualified
+    private final TextOutput types = new TextOutput(List.of(),
+            new PrintStream(OutputStream.nullOutputStream()), new PlaintextFormatter());
+
+    public BinaryOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @param autoFlush whether to send each result in a frame of its own as
+     *                  soon as it arrives
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void accept(Candidate candidate) {
+        write(candidate, -1);
+    }
+
+    @Override
+    public void acceptMatch(Match<?, ?> match) {
+        write(match.candidate(), match.score());
+    }
+
+    private void write(Candidate candidate, int score) {
+        if (candidate instanceof MemberCandidate mc)
+            writeMember(mc.member(), score);
+        else if (candidate instanceof TypeCandidate tc)
+            writeType(tc.clazz(), score);
+        else
+            throw new IllegalArgumentException("Can't encode " + candidate);
+
+        ++resultCount;
+        if (autoFlush || resultCount >= MAX_FRAME_RESULTS)
+            writeFrame(0);
+    }
+
+    /**
+     * Ends the current search's results.
+     */
+    @Override
+    public void flush() {
+        writeFrame(LAST_FRAME);
+    }
+
+
+    // Results =================================================================
+
+    private void writeMember(Member m, int score) {
+        BinaryResult.Kind kind = m instanceof Method ? BinaryResult.Kind.METHOD
+                : m instanceof Constructor ? BinaryResult.Kind.CONSTRUCTOR
+                : BinaryResult.Kind.FIELD;
+
+        int mask = m instanceof Method ? Modifier.methodModifiers()
+                : m instanceof Constructor ? Modifier.constructorModifiers()
+                : Modifier.fieldModifiers();
+        int mods = m.getModifiers() & mask;
+        if (m instanceof Method method && method.isDefault())
+            mods |= BinaryResult.DEFAULT;
+
+        writeHead(kind, mods, score, types.decodeClass(m.getDeclaringClass()),
+                m instanceof Constructor ? "<init>" : m.getName(),
+                m instanceof Method method ? types.decodeType(method.getGenericReturnType())
+                        : m instanceof Field f ? types.decodeType(f.getGenericType())
+                        : null);
+
+        if (m instanceof Executable e) {
+            writeTypeParameters(e.getTypeParameters());
+
+            Parameter[] params = e.getParameters();
+            writeVarint(resultBytes, params.length);
+            for (Parameter p : params)
+                writeString(types.decodeType(p.getParameterizedType(), p.isVarArgs()));
+
+            writeTypes(e.getGenericExceptionTypes());
+        }
+        else {
+            writeVarint(resultBytes, 0);
+            writeVarint(resultBytes, 0);
+            writeVarint(resultBytes, 0);
+        }
+    }
+
+    private void writeType(Class<?> c, int score) {
+        BinaryResult.Kind kind = c.isAnnotation() ? BinaryResult.Kind.ANNOTATION
+                : c.isInterface() ? BinaryResult.Kind.INTERFACE
+                : c.isEnum() ? BinaryResult.Kind.ENUM
+                : c.isRecord() ? BinaryResult.Kind.RECORD
+                : BinaryResult.Kind.CLASS;
+
+        int mods = c.getModifiers() & (Modifier.classModifiers() | Modifier.interfaceModifiers());
+        if (ClassUtils.classIsSealed(c))    mods |= BinaryResult.SEALED;
+        if (ClassUtils.classIsNonSealed(c)) mods |= BinaryResult.NON_SEALED;
+
+        writeHead(kind, mods, score,
+                c.getDeclaringClass() == null ? null : types.decodeClass(c.getDeclaringClass()),
+                c.getCanonicalName() != null ? c.getCanonicalName() : c.getName(),
+                c.getGenericSuperclass() == null ? null : types.decodeType(c.getGenericSuperclass()));
+
+        writeTypeParameters(c.getTypeParameters());
+        writeTypes(c.getGenericInterfaces());
+        writeTypes(c.getPermittedSubclasses() == null ? new Type[0] : c.getPermittedSubclasses());
+    }
+
+    private void writeHead(BinaryResult.Kind kind, int mods, int score,
+                           String owner, String name, String type) {
+        resultBytes.write(kind.ordinal());
+        writeVarint(resultBytes, mods);
+        writeVarint(resultBytes, score + 1);
+        writeString(owner);
+        writeString(name);
+        writeString(type);
+    }
+
+    private void writeTypeParameters(TypeVariable<?>[] typeVariables) {
+        writeVarint(resultBytes, typeVariables.length);
+        for (TypeVariable<?> tv : typeVariables)
+            writeString(types.decodeTypeParameter(tv));
+    }
+
+    private void writeTypes(Type[] ts) {
+        writeVarint(resultBytes, ts.length);
+        for (Type t : ts)
+            writeString(types.decodeType(t));
+    }
+
+    private void writeString(String s) {
+        if (s == null) {
+            writeVarint(resultBytes, 0);
+            return;
+        }
+
+        Integer id = strings.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.put(s, id);
+
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(stringBytes, bytes.length);
+            stringBytes.writeBytes(bytes);
+        }
+        writeVarint(resultBytes, id + 1);
+    }
+
+
+    // Frames ==================================================================
+
+    private void writeFrame(int flags) {
+        try {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(
+                    stringBytes.size() + resultBytes.size() + 16);
+            frame.write(flags);
+            writeVarint(frame, strings.size());
+            stringBytes.writeTo(frame);
+            writeVarint(frame, resultCount);
+            resultBytes.writeTo(frame);
+
+            if (!headerWritten) {
+                writeInt(out, MAGIC);
+                out.write(VERSION);
+                headerWritten = true;
+            }
+            writeInt(out, frame.size());
+            frame.writeTo(out);
+            out.flush();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        strings.clear();
+        stringBytes.reset();
+        resultBytes.reset();
+        resultCount = 0;
+    }
+
+    private static void writeInt(OutputStream os, int n) throws IOException {
+        os.write(n >>> 24);
+        os.write(n >>> 16);
+        os.write(n >>> 8);
+        os.write(n);
+    }
+
+    static void writeVarint(ByteArrayOutputStream os, int n) {
+        while ((n & ~0x7f) != 0) {
+            os.write((n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        os.write(n);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import java.util.List;
+
+/**
+ * A result as decoded by BinaryDecoder from the output of BinaryOutput.
+ * Members and types share the one shape:
+ * <ul>
+ *     <li>owner: a member's declaring class; a nested type's enclosing class</li>
+ *     <li>name: a member's name (&lt;init&gt; for a constructor); a type's
+ *         canonical name</li>
+ *     <li>type: a method's return type or a field's type; a type's
+ *         superclass</li>
+ *     <li>parameters: a method or constructor's parameter types; a type's
+ *         interfaces</li>
+ *     <li>exceptions: a method or constructor's thrown types; a type's
+ *         permitted subclasses</li>
+ * </ul>
+ * Owner and type are null where there's no such thing.
+ * All type names are fully qualified.
+ *
+ * @param kind              what sort of declaration this is
+ * @param modifiers         java.lang.reflect.Modifier bits, plus SEALED,
+ *                          NON_SEALED and DEFAULT
+ * @param score             the match's score, or -1 if it wasn't known
+ * @param owner             see above
+ * @param name              see above
+ * @param type              see above
+ * @param typeParameters    type parameters, with any bounds
+ * @param parameters        see above
+ * @param exceptions        see above
+ */
+public record BinaryResult(
+        Kind            kind,
+        int             modifiers,
+        int             score,
+        String          owner,
+        String          name,
+        String          type,
+        List<String>    typeParameters,
+        List<String>    parameters,
+        List<String>    exceptions
+) {
+    public enum Kind {
+        METHOD, CONSTRUCTOR, FIELD,
+        CLASS, INTERFACE, ENUM, RECORD, ANNOTATION
+    }
+
+    // Modifiers that java.lang.reflect.Modifier doesn't have bits for
+    public static final int SEALED      = 0x10000;
+    public static final int NON_SEALED  = 0x20000;
+    public static final int DEFAULT     = 0x40000;
+}
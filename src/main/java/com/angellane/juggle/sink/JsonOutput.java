@@ -0,0 +1,194 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.formatter.PlaintextFormatter;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.util.ClassUtils;
+import com.angellane.juggle.util.JsonWriter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.*;
+import java.util.List;
+
+/**
+ * Writes each result as a JSON object on a line of its own (NDJSON), for
+ * tools that would otherwise have to pick apart TextOutput's declarations.
+ * <p>
+ * Members have a kind (method, constructor or field), declaring class,
+ * name, modifiers, type parameters, return (or field) type, parameter
+ * types and thrown types.  Types have a kind (class, interface, enum,
+ * record or annotation), name, declaring class if nested, modifiers, type
+ * parameters, superclass, interfaces and permitted subclasses.  Both have
+ * a score when one is known.  All type names are fully qualified.
+ */
+public class JsonOutput implements Sink {
+    static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final PrintStream out;
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean autoFlush = false;
+
+    // Renders type names, with no imports so that they're all qualified
+    private final TextOutput types = new TextOutput(List.of(),
+            new PrintStream(OutputStream.nullOutputStream()), new PlaintextFormatter());
+
+    public JsonOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @param autoFlush whether to write each result as soon as it arrives
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void accept(Candidate candidate) {
+        write(candidate, null);
+    }
+
+    @Override
+    public void acceptMatch(Match<?, ?> match) {
+        write(match.candidate(), match.score());
+    }
+
+    private void write(Candidate candidate, Integer score) {
+        encode(buffer, candidate, score);
+        buffer.append(System.lineSeparator());
+
+        if (autoFlush || buffer.length() >= FLUSH_THRESHOLD)
+            flush();
+    }
+
+    @Override
+    public void flush() {
+        if (!buffer.isEmpty()) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * @param match a result
+     * @return the result as a single line of JSON
+     */
+    public String encode(Match<?, ?> match) {
+        StringBuilder sb = new StringBuilder();
+        encode(sb, match.candidate(), match.score());
+        return sb.toString();
+    }
+
+    private void encode(StringBuilder sb, Candidate candidate, Integer score) {
+        JsonWriter json = new JsonWriter(sb).beginObject();
+
+        if (candidate instanceof MemberCandidate mc)
+            encodeMember(json, mc.member());
+        else if (candidate instanceof TypeCandidate tc)
+            encodeType(json, tc.clazz());
+        else
+            json.name("text").value(candidate.toString());
+
+        if (score != null)
+            json.name("score").value(score);
+
+        json.endObject();
+    }
+
+    private void encodeMember(JsonWriter json, Member m) {
+        json.name("kind").value(m instanceof Method ? "method"
+                : m instanceof Constructor ? "constructor"
+                : "field");
+        json.name("declaringClass").value(types.decodeClass(m.getDeclaringClass()));
+        json.name("name").value(m instanceof Constructor ? "<init>" : m.getName());
+
+        // Unlike TextOutput, don't mistake the varargs bit for transient
+        int mask = m instanceof Method ? Modifier.methodModifiers()
+                : m instanceof Constructor ? Modifier.constructorModifiers()
+                : Modifier.fieldModifiers();
+        boolean isDefault = m instanceof Method method && method.isDefault();
+        modifiers(json, types.decodeModifiers(m.getModifiers() & mask, isDefault));
+
+        if (m instanceof Field f)
+            json.name("type").value(types.decodeType(f.getGenericType()));
+        else if (m instanceof Executable e) {
+            typeParameters(json, e.getTypeParameters());
+
+            if (e instanceof Method method)
+                json.name("returnType").value(types.decodeType(method.getGenericReturnType()));
+
+            json.name("parameters").beginArray();
+            for (Parameter p : e.getParameters())
+                json.value(types.decodeType(p.getParameterizedType(), p.isVarArgs()));
+            json.endArray();
+
+            typeList(json, "throws", e.getGenericExceptionTypes());
+        }
+    }
+
+    private void encodeType(JsonWriter json, Class<?> c) {
+        String kind = types.decodeTypeKind(c);
+        json.name("kind").value(kind.equals("@interface") ? "annotation" : kind);
+        json.name("name").value(c.getCanonicalName() != null ? c.getCanonicalName() : c.getName());
+        if (c.getDeclaringClass() != null)
+            json.name("declaringClass").value(types.decodeClass(c.getDeclaringClass()));
+
+        String mods = types.decodeModifiers(c.getModifiers(), false);
+        if (ClassUtils.classIsSealed(c))    mods += "sealed ";
+        if (ClassUtils.classIsNonSealed(c)) mods += "non-sealed ";
+        modifiers(json, mods);
+
+        typeParameters(json, c.getTypeParameters());
+
+        if (c.getGenericSuperclass() != null && c.getSuperclass() != Object.class)
+            json.name("superclass").value(types.decodeType(c.getGenericSuperclass()));
+
+        typeList(json, "interfaces", c.getGenericInterfaces());
+
+        if (c.getPermittedSubclasses() != null)
+            typeList(json, "permits", c.getPermittedSubclasses());
+    }
+
+    private static void modifiers(JsonWriter json, String mods) {
+        json.name("modifiers").beginArray();
+        for (String mod : mods.split(" "))
+            if (!mod.isEmpty())
+                json.value(mod);
+        json.endArray();
+    }
+
+    private void typeParameters(JsonWriter json, TypeVariable<?>[] typeVariables) {
+        json.name("typeParameters").beginArray();
+        for (TypeVariable<?> tv : typeVariables)
+            json.value(types.decodeTypeParameter(tv));
+        json.endArray();
+    }
+
+    private void typeList(JsonWriter json, String name, Type[] ts) {
+        json.name(name).beginArray();
+        for (Type t : ts)
+            json.value(types.decodeType(t));
+        json.endArray();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.shard.ShardRecord;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Output of a shard worker process.  Each match is rendered and keyed as a
+ * ShardRecord; on close the records are sorted and written out one per
+ * line, ready to be merged with those of the other shards.
+ */
+public class ShardOutput implements Sink, AutoCloseable {
+    private final List<String> importedPackageNames;
+    private final Function<Match<?, ?>, String> renderer;
+    private final Comparator<ShardRecord> order;
+    private final PrintStream out;
+
+    private final List<ShardRecord> records = new ArrayList<>();
+
+    public ShardOutput(List<String> importedPackageNames,
+                       Function<Match<?, ?>, String> renderer,
+                       Comparator<ShardRecord> order,
+                       PrintStream out) {
+        this.importedPackageNames = List.copyOf(importedPackageNames);
+        this.renderer = renderer;
+        this.order = order;
+        this.out = out;
+    }
+
+    /**
+     * Outputs a candidate that didn't come from a match.  There's no query
+     * and no score, so it's treated as an exact match: score 0.
+     */
+    @Override
+    public void accept(Candidate candidate) {
+        acceptMatch(new Match<>(candidate, null, 0));
+    }
+
+    @Override
+    public void acceptMatch(Match<?, ?> match) {
+        records.add(ShardRecord.of(match, importedPackageNames, renderer));
+    }
+
+    @Override
+    public void close() {
+        records.sort(order);
+        records.forEach(r -> out.println(r.encode()));
+        out.flush();
+    }
+}
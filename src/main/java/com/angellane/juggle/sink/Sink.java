@@ -18,8 +18,25 @@
 package com.angellane.juggle.sink;
 
 import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.match.Match;
 
 import java.util.function.Consumer;
 
 public interface Sink extends Consumer<Candidate> {
+    /**
+     * Called by the Juggler for each match, in output order.  Most sinks
+     * only care about the candidate, but those that need the score can
+     * override this.
+     *
+     * @param match a match to be output
+     */
+    default void acceptMatch(Match<?, ?> match) {
+        accept(match.candidate());
+    }
+
+    /**
+     * Called by the Juggler after the last match of each search, for sinks
+     * that buffer their output.
+     */
+    default void flush() {}
 }
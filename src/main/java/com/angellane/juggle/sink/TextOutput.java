@@ -21,13 +21,18 @@ import com.angellane.juggle.candidate.Candidate;
 import com.angellane.juggle.candidate.MemberCandidate;
 import com.angellane.juggle.candidate.TypeCandidate;
 import com.angellane.juggle.formatter.Formatter;
+import com.angellane.juggle.source.ClassOrigins;
 import com.angellane.juggle.util.ClassUtils;
 
 import java.io.PrintStream;
 import java.lang.reflect.*;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -43,72 +48,159 @@ public class TextOutput implements Sink {
         this.f = f;
     }
 
+    private Function<Class<?>, List<ClassOrigins.Copy>> origins = null;
+
+    /**
+     * Follows each result with the JARs or directories its class is in.
+     *
+     * @param origins finds the copies of a class
+     */
+    public void setOrigins(Function<Class<?>, List<ClassOrigins.Copy>> origins) {
+        this.origins = origins;
+    }
+
+    // Results are gathered here and written out in large chunks: each
+    // write to a PrintStream is encoded and (for System.out) flushed on its
+    // own, which is slow when there are tens of thousands of results
+    static final int FLUSH_THRESHOLD = 64 * 1024;
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean autoFlush = false;
+
+    /**
+     * @param autoFlush whether to write each result as soon as it arrives,
+     *                  rather than when the buffer fills or the search ends
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
     @Override
     public void accept(Candidate candidate) {
+        describe(buffer, candidate);
+        buffer.append(System.lineSeparator());
+
+        if (autoFlush || buffer.length() >= FLUSH_THRESHOLD)
+            flush();
+    }
+
+    @Override
+    public void flush() {
+        if (!buffer.isEmpty()) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * @param candidate a result
+     * @return the result as it's output, including its origins if wanted
+     */
+    public String describe(Candidate candidate) {
+        StringBuilder ret = new StringBuilder();
+        describe(ret, candidate);
+        return ret.toString();
+    }
+
+    private void describe(StringBuilder ret, Candidate candidate) {
+        decode(ret, candidate);
+        if (origins == null)
+            return;
+
+        Class<?> c = candidate instanceof TypeCandidate ct ? ct.clazz()
+                : candidate instanceof MemberCandidate cm ? cm.member().getDeclaringClass()
+                : null;
+        List<ClassOrigins.Copy> copies = c == null ? List.of() : origins.apply(c);
+        if (copies.isEmpty())
+            return;
+
+        String identical = copies.stream()
+                .filter(ClassOrigins.Copy::identical)
+                .map(ClassOrigins.Copy::location)
+                .collect(Collectors.joining(", "));
+        String different = copies.stream()
+                .filter(Predicate.not(ClassOrigins.Copy::identical))
+                .map(ClassOrigins.Copy::location)
+                .collect(Collectors.joining(", "));
+
+        ret.append(System.lineSeparator());
+        ret.append(f.formatInfo("    in " + identical
+                + (different.isEmpty() ? "" : " (different copies in " + different + ")")));
+    }
+
+
+    public String decode(Candidate candidate) {
+        StringBuilder ret = new StringBuilder();
+        decode(ret, candidate);
+        return ret.toString();
+    }
+
+    private void decode(StringBuilder ret, Candidate candidate) {
         if (candidate instanceof TypeCandidate ct)
-            out.println(decode(ct.clazz()));
+            decode(ret, ct.clazz());
         else if (candidate instanceof MemberCandidate cm)
-            out.println(decode(cm.member()));
+            decode(ret, cm.member());
+        else
+            ret.append(candidate);
     }
 
 
     public String decode(Class<?> c) {
         StringBuilder ret = new StringBuilder();
+        decode(ret, c);
+        return ret.toString();
+    }
 
-        StringBuilder mods = new StringBuilder();
-        mods.append(decodeModifiers(c.getModifiers(), false));
-        if (ClassUtils.classIsSealed(c))    mods.append("sealed ");
-        if (ClassUtils.classIsNonSealed(c)) mods.append("non-sealed ");
+    private void decode(StringBuilder ret, Class<?> c) {
+        String mods = decodeModifiers(c.getModifiers(), false);
+        if (ClassUtils.classIsSealed(c))    mods += "sealed ";
+        if (ClassUtils.classIsNonSealed(c)) mods += "non-sealed ";
 
-        ret.append(f.formatKeyword(mods.toString()));
+        f.appendKeyword(ret, mods);
 
-        ret.append(f.formatKeyword(decodeTypeKind(c)));
+        f.appendKeyword(ret, decodeTypeKind(c));
         ret.append(" ");
-        ret.append(f.formatClassName(decodeClass(c)));
+        f.appendClassName(ret, decodeClass(c));
 
         if (c.getSuperclass() != null
                 && !c.getSuperclass().equals(Object.class)
                 && !c.isRecord() && !c.isEnum()
         ) {
-            ret.append(f.formatKeyword(" extends "));
-            ret.append(f.formatType(decodeClass(c.getSuperclass())));
+            f.appendKeyword(ret, " extends ");
+            f.appendType(ret, decodeClass(c.getSuperclass()));
         }
 
         if (c.getInterfaces().length > 0 && !c.isAnnotation()) {
-            ret.append(f.formatKeyword(c.isInterface() ? " extends " : " implements "));
-            ret.append(
-                    Arrays.stream(c.getGenericInterfaces())
-                            .map(this::decodeType)
-                            .map(f::formatType)
-                            .collect(Collectors.joining(
-                                    f.formatPunctuation(", "))
-                            )
-            );
+            f.appendKeyword(ret, c.isInterface() ? " extends " : " implements ");
+            appendTypeList(ret, c.getGenericInterfaces());
         }
 
         if (c.getPermittedSubclasses() != null
                 && c.getPermittedSubclasses().length > 0) {
-            ret.append(f.formatKeyword(" permits "));
-            ret.append(
-                    Arrays.stream(c.getPermittedSubclasses())
-                            .map(this::decodeClass)
-                            .map(f::formatType)
-                            .collect(Collectors.joining(
-                                    f.formatPunctuation(", "))
-                            )
-            );
+            f.appendKeyword(ret, " permits ");
+            appendTypeList(ret, c.getPermittedSubclasses());
         }
+    }
 
-        return ret.toString();
+    private void appendTypeList(StringBuilder ret, Type[] types) {
+        for (int i = 0; i < types.length; ++i) {
+            if (i > 0)
+                f.appendPunctuation(ret, ", ");
+            f.appendType(ret, decodeType(types[i]));
+        }
     }
 
     public String decode(Member m) {
         StringBuilder ret = new StringBuilder();
+        decode(ret, m);
+        return ret.toString();
+    }
 
+    private void decode(StringBuilder ret, Member m) {
         // Default methods aren't flagged explicitly in modifiers
         boolean isDefault = m instanceof Method method && method.isDefault();
 
-        ret.append(f.formatKeyword(decodeModifiers(m.getModifiers(), isDefault)));
+        f.appendKeyword(ret, decodeModifiers(m.getModifiers(), isDefault));
 
         Executable e = (m instanceof Executable) ? (Executable)m : null;
 
@@ -116,17 +208,15 @@ public class TextOutput implements Sink {
             ret.append(decodeTypeParameters(e.getTypeParameters()));
 
         ret.append(decodeDeclType(m));
-        ret.append(f.formatClassName(decodeType(m.getDeclaringClass())));
+        f.appendClassName(ret, decodeType(m.getDeclaringClass()));
 
         ret.append('.');
-        ret.append(f.formatMethodName(m instanceof Constructor ? "<init>" : m.getName()));
+        f.appendMethodName(ret, m instanceof Constructor ? "<init>" : m.getName());
 
         if (e != null) {
             ret.append(decodeParams(e.getParameters()));
             ret.append(decodeThrows(e.getGenericExceptionTypes()));
         }
-
-        return ret.toString();
     }
 
     public String decodeModifiers(int mods, boolean isDefault) {
@@ -161,13 +251,16 @@ public class TextOutput implements Sink {
                 ? ""
                 : ('<' +
                 Stream.of(typeVariables)
-                        .map(tv -> tv.getName()
-                                + decodeBounds("extends", tv.getBounds()))
+                        .map(this::decodeTypeParameter)
                         .collect(Collectors.joining(",")
                         )
                 + "> ");
     }
 
+    public String decodeTypeParameter(TypeVariable<?> tv) {
+        return tv.getName() + decodeBounds("extends", tv.getBounds());
+    }
+
     public String decodeDeclType(Member m) {
         if (m instanceof Method)
             return decodeType(((Method) m).getGenericReturnType()) + ' ';
@@ -189,7 +282,34 @@ public class TextOutput implements Sink {
         return decodeType(t, actualTypeArgs, false);
     }
 
+    // Rendered types, which are needed over and over (String, List<E>, and
+    // the declaring class of every member).  A rendering depends only on
+    // the type, whether it's varargs, and the imports, which are fixed for
+    // this TextOutput; formatting is applied afterwards.  In watch mode
+    // classes are reloaded, so the cache is bounded rather than allowed to
+    // keep stale classes alive for ever.
+    private record RenderKey(Type type, boolean isVarArgs) {}
+    static final int RENDER_CACHE_LIMIT = 1 << 16;
+    private final Map<RenderKey, String> renderCache = new ConcurrentHashMap<>();
+
     public String decodeType(Type t, Type[] actualTypeArgs, boolean isVarArgs) {
+        if (actualTypeArgs != null && actualTypeArgs.length > 0)
+            return renderType(t, actualTypeArgs, isVarArgs);
+
+        // Not computeIfAbsent(), since rendering a type renders its
+        // arguments, which would update the map re-entrantly
+        RenderKey key = new RenderKey(t, isVarArgs);
+        String ret = renderCache.get(key);
+        if (ret == null) {
+            ret = renderType(t, null, isVarArgs);
+            if (renderCache.size() >= RENDER_CACHE_LIMIT)
+                renderCache.clear();
+            renderCache.put(key, ret);
+        }
+        return ret;
+    }
+
+    private String renderType(Type t, Type[] actualTypeArgs, boolean isVarArgs) {
         /* In a JDK17 world...
         return switch (t) {
             case GenericArrayType   ga  -> decodeGenericArrayType(ga);
@@ -276,7 +396,7 @@ public class TextOutput implements Sink {
     }
 
     public String decodeClass(Class<?> c) {
-        return decodeClass(c, null, false);
+        return decodeType(c);       // The same thing, but cached
     }
 
     public String decodeClass(Class<?> c, Type[] actualTypeArguments, boolean isVarArgs) {
@@ -0,0 +1,192 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * A JAR in a Maven or Gradle cache, identified by its coordinates.
+ *
+ * @param group     group ID, e.g. org.apache.commons
+ * @param artifact  artifact ID, e.g. commons-lang3
+ * @param version   e.g. 3.12.0
+ * @param jar       where the JAR is
+ */
+public record Artifact(String group, String artifact, String version, Path jar) {
+    private static final String JAR_SUFFIX = ".jar";
+
+    /**
+     * @return group and artifact IDs, without the version
+     */
+    public String key() {
+        return group + ":" + artifact;
+    }
+
+    @Override
+    public String toString() {
+        return key() + ":" + version;
+    }
+
+    /**
+     * Recognises a JAR in a Maven repository, which lives at
+     * group/path/artifact/version/artifact-version.jar.  Sources, Javadoc
+     * and other classified JARs aren't wanted.
+     *
+     * @param root the repository, e.g. ~/.m2/repository
+     * @param jar a file somewhere under root
+     * @return the artifact, if jar is the main JAR of one
+     */
+    public static Optional<Artifact> fromMavenPath(Path root, Path jar) {
+        List<String> comps = components(root.relativize(jar));
+        int n = comps.size();
+        if (n < 4)
+            return Optional.empty();
+
+        String version = comps.get(n-2);
+        String artifact = comps.get(n-3);
+        String group = String.join(".", comps.subList(0, n-3));
+
+        return comps.get(n-1).equals(artifact + "-" + version + JAR_SUFFIX)
+                ? Optional.of(new Artifact(group, artifact, version, jar))
+                : Optional.empty();
+    }
+
+    /**
+     * Recognises a JAR in Gradle's cache, which lives at
+     * group/artifact/version/hash/artifact-version.jar under files-2.1.
+     *
+     * @param root the files-2.1 directory
+     * @param jar a file somewhere under root
+     * @return the artifact, if jar is the main JAR of one
+     */
+    public static Optional<Artifact> fromGradlePath(Path root, Path jar) {
+        List<String> comps = components(root.relativize(jar));
+        if (comps.size() != 5)
+            return Optional.empty();
+
+        String group = comps.get(0);
+        String artifact = comps.get(1);
+        String version = comps.get(2);
+
+        return comps.get(4).equals(artifact + "-" + version + JAR_SUFFIX)
+                ? Optional.of(new Artifact(group, artifact, version, jar))
+                : Optional.empty();
+    }
+
+    private static List<String> components(Path relative) {
+        return IntStream.range(0, relative.getNameCount())
+                .mapToObj(i -> relative.getName(i).toString())
+                .toList();
+    }
+
+
+    // Version ordering ========================================================
+    //
+    // Roughly Maven's: versions are split into numbers and words, numbers
+    // compare numerically, and well-known qualifiers sort before (or, for
+    // service packs, after) the release they qualify.  So
+    //      1.0-alpha < 1.0-beta2 < 1.0-RC1 < 1.0-SNAPSHOT < 1.0 < 1.0-sp1 < 1.0.1
+
+    public static final Comparator<String> VERSION_ORDER = Artifact::compareVersions;
+
+    private static final Map<String, Integer> QUALIFIER_RANKS = Map.ofEntries(
+            Map.entry("alpha", 1),     Map.entry("a", 1),
+            Map.entry("beta", 2),      Map.entry("b", 2),
+            Map.entry("milestone", 3), Map.entry("m", 3),
+            Map.entry("rc", 4),        Map.entry("cr", 4),
+            Map.entry("snapshot", 5),
+            Map.entry("", 6),          Map.entry("ga", 6),
+            Map.entry("final", 6),     Map.entry("release", 6),
+            Map.entry("sp", 7)
+    );
+    private static final int RELEASE_RANK = 6;
+
+    private static int compareVersions(String a, String b) {
+        List<String> as = tokens(a);
+        List<String> bs = tokens(b);
+
+        for (int i = 0; i < Math.max(as.size(), bs.size()); ++i) {
+            int c = compareTokens(i < as.size() ? as.get(i) : null,
+                    i < bs.size() ? bs.get(i) : null);
+            if (c != 0)
+                return c;
+        }
+        return 0;
+    }
+
+    private static List<String> tokens(String version) {
+        List<String> ret = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+
+        for (char ch : version.toLowerCase().toCharArray()) {
+            boolean separator = ch == '.' || ch == '-' || ch == '_';
+            boolean switchesKind = !sb.isEmpty()
+                    && Character.isDigit(ch) != Character.isDigit(sb.charAt(0));
+
+            if ((separator || switchesKind) && !sb.isEmpty()) {
+                ret.add(sb.toString());
+                sb.setLength(0);
+            }
+            if (!separator)
+                sb.append(ch);
+        }
+        if (!sb.isEmpty())
+            ret.add(sb.toString());
+
+        return ret;
+    }
+
+    private static boolean isNumber(String token) {
+        return token != null && !token.isEmpty() && Character.isDigit(token.charAt(0));
+    }
+
+    // A missing token is a zero when compared with a number, otherwise a
+    // release: 1.0 is the same as 1.0.0, and comes after 1.0-beta
+    private static int compareTokens(String a, String b) {
+        if (a == null)
+            a = isNumber(b) ? "0" : "";
+        if (b == null)
+            b = isNumber(a) ? "0" : "";
+
+        if (isNumber(a) && isNumber(b)) {
+            String x = a.replaceFirst("^0+(?=.)", "");
+            String y = b.replaceFirst("^0+(?=.)", "");
+            return x.length() != y.length()
+                    ? Integer.compare(x.length(), y.length())
+                    : x.compareTo(y);
+        }
+        else if (isNumber(a))
+            return 1;
+        else if (isNumber(b))
+            return -1;
+
+        int c = Integer.compare(rank(a), rank(b));
+        return c != 0 || rank(a) == RELEASE_RANK ? c : a.compareTo(b);
+    }
+
+    // Unknown words count as pre-releases, after the known ones
+    private static int rank(String qualifier) {
+        return QUALIFIER_RANKS.getOrDefault(qualifier, RELEASE_RANK - 1);
+    }
+}
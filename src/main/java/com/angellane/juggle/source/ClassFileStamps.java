@@ -0,0 +1,139 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.JuggleError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the modification time, size and content hash of each class file
+ * in a directory tree, so that a later scan can tell which have really
+ * changed.
+ * <p>
+ * Files are only re-read when their modification time or size has changed,
+ * and then only count as changed if their content has too.  (Build tools
+ * often rewrite class files without changing them.)
+ */
+public class ClassFileStamps {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private record Stamp(FileTime modified, long size, String hash) {}
+
+    private final Path root;
+    private Map<Path, Stamp> stamps;
+
+    /**
+     * Scans root, recording a stamp for every class file found.
+     *
+     * @param root the directory to track
+     */
+    public ClassFileStamps(Path root) {
+        this.root = root;
+        this.stamps = scan(Map.of());
+    }
+
+    /**
+     * Scans the directory again, and compares the result with the previous
+     * scan.
+     *
+     * @return relative paths of the class files that have been added,
+     *         removed, or whose contents have changed since the last scan
+     */
+    public Set<Path> rescan() {
+        Map<Path, Stamp> previous = stamps;
+        stamps = scan(previous);
+
+        Set<Path> changed = new TreeSet<>();
+        stamps.forEach((p, s) -> {
+            Stamp old = previous.get(p);
+            if (old == null || !old.hash().equals(s.hash()))
+                changed.add(p);
+        });
+        previous.keySet().stream()
+                .filter(p -> !stamps.containsKey(p))
+                .forEach(changed::add);
+
+        return changed;
+    }
+
+    private Map<Path, Stamp> scan(Map<Path, Stamp> previous) {
+        Map<Path, Stamp> ret = new HashMap<>();
+
+        // Cleaned by a build, perhaps: no class files for now
+        if (!Files.isDirectory(root))
+            return ret;
+
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.toString().endsWith(CLASS_SUFFIX))
+                    continue;
+
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(
+                            file, BasicFileAttributes.class);
+                    if (!attrs.isRegularFile())
+                        continue;
+
+                    Path rel = root.relativize(file);
+                    Stamp old = previous.get(rel);
+
+                    ret.put(rel, old != null
+                            && old.modified().equals(attrs.lastModifiedTime())
+                            && old.size() == attrs.size()
+                            ? old
+                            : new Stamp(attrs.lastModifiedTime(), attrs.size(),
+                                    hash(file)));
+                }
+                catch (NoSuchFileException ignored) {
+                    // Deleted while we were scanning (mid-compile, perhaps);
+                    // the next scan will catch up
+                }
+            }
+        }
+        catch (IOException | UncheckedIOException ex) {
+            if (!Files.isDirectory(root))
+                return Map.of();    // Deleted while we were scanning
+            throw new JuggleError(ex.getLocalizedMessage());
+        }
+
+        return ret;
+    }
+
+    private static String hash(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest(Files.readAllBytes(file)));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds every JAR or directory that has a copy of a class, and which of
+ * them hold exactly the class that was loaded.
+ * <p>
+ * A class loader only ever loads one class of a given name, so when a
+ * library is on the classpath more than once (several versions of it, or
+ * an application JAR that bundles it), all but the first copy go unseen.
+ * Copies are compared by a hash of their class file, so that a copy that
+ * differs from the one searched -- say, a different version -- can be
+ * told apart from one that's merely duplicated.
+ */
+public class ClassOrigins {
+    /**
+     * @param location  the JAR, directory or module the copy is in
+     * @param identical whether it's byte-for-byte the copy that was loaded
+     */
+    public record Copy(String location, boolean identical) {}
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final ClassLoader loader;
+    private final Map<Class<?>, List<Copy>> cache = new ConcurrentHashMap<>();
+
+    public ClassOrigins(ClassLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param c a class that was loaded by our loader (or its parents)
+     * @return the copies of its class file, starting with the one that was
+     * loaded; empty if they can't be found (e.g. for a class read from a
+     * JMOD)
+     */
+    public List<Copy> copiesOf(Class<?> c) {
+        return cache.computeIfAbsent(c, this::findCopies);
+    }
+
+    private final Map<Class<?>, Optional<String>> locations = new ConcurrentHashMap<>();
+
+    /**
+     * Like the location of the first of copiesOf(), but without reading any
+     * of the copies.
+     *
+     * @param c a class that was loaded by our loader (or its parents)
+     * @return the JAR file, directory or module it was loaded from, if that
+     * can be found
+     */
+    public Optional<String> locationOf(Class<?> c) {
+        return locations.computeIfAbsent(c, k -> {
+            String resourceName = k.getName().replace('.', '/') + CLASS_SUFFIX;
+            return Optional.ofNullable(loader.getResource(resourceName))
+                    .map(url -> location(url, resourceName));
+        });
+    }
+
+    private List<Copy> findCopies(Class<?> c) {
+        String resourceName = c.getName().replace('.', '/') + CLASS_SUFFIX;
+
+        List<URL> urls;
+        try {
+            urls = Collections.list(loader.getResources(resourceName));
+        }
+        catch (IOException ex) {
+            return List.of();
+        }
+
+        // Resources are found in the same order as classes are loaded
+        List<Copy> ret = new ArrayList<>();
+        byte[] loaded = null;
+        for (URL url : urls) {
+            byte[] hash = hash(url);
+            if (ret.isEmpty())
+                loaded = hash;
+
+            ret.add(new Copy(location(url, resourceName),
+                    hash != null && Arrays.equals(hash, loaded)));
+        }
+        return ret;
+    }
+
+    private static byte[] hash(URL url) {
+        try (InputStream is = url.openStream()) {
+            return MessageDigest.getInstance("SHA-256").digest(is.readAllBytes());
+        }
+        catch (IOException | NoSuchAlgorithmException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param url where a class file was found
+     * @param resourceName the class file's name within its JAR or directory
+     * @return the JAR file, directory or module it was found in
+     */
+    static String location(URL url, String resourceName) {
+        String s = url.toString();
+
+        try {
+            switch (url.getProtocol()) {
+                case "jar" -> {
+                    int bang = s.indexOf("!/");
+                    if (bang != -1)
+                        return Path.of(new URL(s.substring("jar:".length(), bang)).toURI())
+                                .toString();
+                }
+                case "file" -> {
+                    // Climb out of the class's package directories
+                    Path dir = Path.of(url.toURI());
+                    for (int i = resourceName.split("/").length; i > 0 && dir != null; --i)
+                        dir = dir.getParent();
+                    if (dir != null)
+                        return dir.toString();
+                }
+                case "jrt" -> {
+                    String[] comps = url.getPath().split("/");
+                    if (comps.length > 1)
+                        return comps[1];
+                }
+            }
+        }
+        catch (IOException | URISyntaxException | IllegalArgumentException ignored) {
+            // Fall through
+        }
+
+        return s;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.JuggleError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Waits for changes in the directory trees of some FileSources.
+ * <p>
+ * A WatchService only watches the directory it's given, not its
+ * subdirectories, so every directory in each tree is registered, as are
+ * any new directories that appear later.
+ * <p>
+ * A build's clean step may delete a whole tree, root and all.  While a root
+ * is missing it's looked for every so often, and once it's back it's
+ * watched again.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    // A compile touches many files in quick succession; wait for this long
+    // without any further events before reporting a change
+    private static final long SETTLE_MILLIS = 250;
+
+    // How often to look for a root that's been deleted
+    private static final long MISSING_ROOT_MILLIS = 1000;
+
+    private final WatchService service;
+    private final List<Path> roots;
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+
+    public DirectoryWatcher(Collection<FileSource> sources) {
+        roots = sources.stream().map(FileSource::getPath).toList();
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            for (Path root : roots)
+                registerTree(root);
+        }
+        catch (IOException | UncheckedIOException ex) {
+            throw new JuggleError("Can't watch for changes: %s"
+                    .formatted(ex.getLocalizedMessage()));
+        }
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator)
+                keys.put(dir, dir.register(service,
+                        ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+        }
+    }
+
+    /**
+     * Starts watching any roots that were deleted and have since been
+     * created again.  Call after rescanning, so that changes made since the
+     * rescan aren't missed.
+     */
+    public void registerRoots() {
+        for (Path root : roots)
+            if (!keys.containsKey(root) && Files.isDirectory(root))
+                try {
+                    registerTree(root);
+                }
+                catch (IOException | UncheckedIOException ignored) {
+                    // Gone again already; keep looking
+                }
+    }
+
+    private boolean isRootMissing() {
+        return roots.stream().anyMatch(root -> !keys.containsKey(root));
+    }
+
+    private boolean isRootBack() {
+        return roots.stream()
+                .anyMatch(root -> !keys.containsKey(root) && Files.isDirectory(root));
+    }
+
+    /**
+     * Blocks until something changes in one of the watched directories and
+     * things have then gone quiet.  The caller has to work out what changed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitChange() throws InterruptedException {
+        WatchKey key;
+        while ((key = isRootMissing()
+                ? service.poll(MISSING_ROOT_MILLIS, TimeUnit.MILLISECONDS)
+                : service.take()) == null)
+            if (isRootBack())
+                return;
+
+        do
+            handleEvents(key);
+        while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path dir = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents())
+            if (event.kind() == ENTRY_CREATE
+                    && event.context() instanceof Path name
+                    && Files.isDirectory(dir.resolve(name)))
+                try {
+                    registerTree(dir.resolve(name));
+                }
+                catch (IOException | UncheckedIOException ignored) {
+                    // Gone again already
+                }
+
+        if (!key.reset())
+            keys.remove(dir);       // The directory's gone
+    }
+
+    @Override
+    public void close() {
+        try {
+            service.close();
+        }
+        catch (IOException ignored) {}
+    }
+}
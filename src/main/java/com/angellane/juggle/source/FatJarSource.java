@@ -0,0 +1,193 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.JuggleError;
+import com.angellane.juggle.util.ZipArchive;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleReader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * A Spring Boot style "fat" JAR (or a WAR), whose application classes live
+ * under BOOT-INF/classes/ (or WEB-INF/classes/), and whose dependencies are
+ * JARs nested under BOOT-INF/lib/ (or WEB-INF/lib/).
+ * <p>
+ * Nothing is extracted.  The outer JAR is memory-mapped, and each nested
+ * JAR is read in place: those that are stored uncompressed (as Spring Boot
+ * requires) are simply slices of the mapped file.  Classes are handed to
+ * the class loader by a reader, since URLClassLoader can't see inside
+ * nested JARs.
+ */
+public class FatJarSource extends Source {
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String JAR_SUFFIX   = ".jar";
+    private static final String MODULE_INFO  = "module-info.class";
+    private static final String VERSIONS     = "META-INF/versions/";
+
+    private static final List<String> CLASS_DIRS =
+            List.of("BOOT-INF/classes/", "WEB-INF/classes/");
+    private static final List<String> LIB_DIRS =
+            List.of("BOOT-INF/lib/", "WEB-INF/lib/");
+
+    private final Path path;
+
+    public FatJarSource(String s) {
+        this.path = Path.of(s);
+    }
+
+    /**
+     * @param path a path from the command line
+     * @return true if path is a JAR file with nested classes or JARs
+     */
+    public static boolean isFatJar(Path path) {
+        if (!path.toFile().isFile())
+            return false;
+
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            return zip.stream()
+                    .map(java.util.zip.ZipEntry::getName)
+                    .anyMatch(name -> Stream.concat(CLASS_DIRS.stream(), LIB_DIRS.stream())
+                            .anyMatch(name::startsWith));
+        }
+        catch (IOException ex) {
+            return false;       // Not our problem; FileSource will complain
+        }
+    }
+
+    // Where each class or resource comes from, in search order: application
+    // classes first, then each nested JAR in turn
+    private record Location(ZipArchive archive, ZipArchive.Entry entry) {}
+    private final Map<String, Location> resources = new LinkedHashMap<>();
+
+    @Override
+    public List<URL> configure() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new JuggleError("Too large: %s".formatted(path));
+
+            // The mapping stays valid after the channel is closed
+            ZipArchive outer = new ZipArchive(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+
+            for (String dir : CLASS_DIRS)
+                addEntries(outer, dir);
+
+            for (ZipArchive.Entry e : outer.entries())
+                if (isNestedJar(e.name()))
+                    addEntries(new ZipArchive(outer.contents(e)), "");
+        }
+        catch (IOException ex) {
+            throw new JuggleError("%s: %s".formatted(path, ex.getLocalizedMessage()));
+        }
+
+        return List.of();
+    }
+
+    private static boolean isNestedJar(String name) {
+        return name.endsWith(JAR_SUFFIX)
+                && LIB_DIRS.stream().anyMatch(dir ->
+                        name.startsWith(dir) && name.indexOf('/', dir.length()) == -1);
+    }
+
+    private void addEntries(ZipArchive archive, String prefix) {
+        for (ZipArchive.Entry e : archive.entries())
+            if (!e.isDirectory() && e.name().startsWith(prefix))
+                resources.putIfAbsent(e.name().substring(prefix.length()),
+                        new Location(archive, e));
+    }
+
+    @Override
+    public Stream<Path> files() {
+        return Stream.of(path);
+    }
+
+    @Override
+    public Stream<String> classNames() {
+        return resources.keySet().stream()
+                .filter(s -> s.endsWith(CLASS_SUFFIX))
+                .filter(s -> !s.endsWith(MODULE_INFO))
+                .filter(s -> !s.startsWith(VERSIONS))
+                .map(s -> s.substring(0, s.length() - CLASS_SUFFIX.length()))
+                .map(s -> s.replace('/', '.'));
+    }
+
+    @Override
+    public List<ModuleReader> moduleReaders() {
+        return List.of(new Reader());
+    }
+
+    /**
+     * Reads classes and resources from wherever they are in the fat JAR.
+     */
+    private class Reader implements ModuleReader {
+        private Optional<ByteBuffer> contents(String name) throws IOException {
+            Location loc = resources.get(name);
+            return loc == null
+                    ? Optional.empty()
+                    : Optional.of(loc.archive().contents(loc.entry()));
+        }
+
+        @Override
+        public Optional<URI> find(String name) {
+            // There's no URL scheme for an entry in a nested JAR
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<InputStream> open(String name) throws IOException {
+            Optional<ByteBuffer> bytes = read(name);
+            if (bytes.isEmpty())
+                return Optional.empty();
+
+            byte[] array = new byte[bytes.get().remaining()];
+            bytes.get().get(array);
+            return Optional.of(new ByteArrayInputStream(array));
+        }
+
+        @Override
+        public Optional<ByteBuffer> read(String name) throws IOException {
+            try {
+                return contents(name);
+            }
+            catch (ZipException ex) {
+                throw new IOException("%s in %s".formatted(ex.getMessage(), path), ex);
+            }
+        }
+
+        @Override
+        public Stream<String> list() {
+            return List.copyOf(resources.keySet()).stream();
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -26,14 +26,19 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 
 public class FileSource extends Source {
     private final static String CLASS_SUFFIX = ".class";
     private final static String MODULE_INFO = "module-info.class";
+    private final static String META_INF = "META-INF/";
 
     private final Path path;
 
@@ -41,6 +46,76 @@ public class FileSource extends Source {
         this.path = Path.of(s);
     }
 
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return true if this source is a directory of class files, whose
+     * contents might change while Juggle is running (a directory whose
+     * changes are being tracked stays one even while it's deleted)
+     */
+    public boolean isDirectory() {
+        return stamps != null || path.toFile().isDirectory();
+    }
+
+    private ClassFileStamps stamps = null;
+
+    /**
+     * Starts tracking changes to the class files in this (directory) source.
+     */
+    public void trackChanges() {
+        if (stamps == null)
+            stamps = new ClassFileStamps(path);
+    }
+
+    /**
+     * @return names of classes whose class files have been added, removed or
+     * changed since trackChanges() or the last call to this method
+     */
+    public Set<String> changedClassNames() {
+        if (stamps == null)
+            throw new IllegalStateException("Not tracking changes to " + path);
+
+        return stamps.rescan().stream()
+                .map(Path::toString)
+                .filter(FileSource::isClassEntry)
+                .map(FileSource::classNameFromEntry)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    static boolean isClassEntry(String entry) {
+        // Nothing under META-INF is loadable by its entry name; in
+        // particular, not the versioned classes of a multi-release JAR
+        return entry.endsWith(CLASS_SUFFIX) && !entry.endsWith(MODULE_INFO)
+                && !entry.startsWith(META_INF);
+    }
+
+    /**
+     * Lists the classes in a JAR.  A multi-release JAR may hold several
+     * versions of a class; it's listed once, under its plain name, and
+     * the class loader picks the version for the running JVM.
+     *
+     * @param jar a JAR file
+     * @return the binary names of its classes
+     * @throws IOException if it can't be read
+     */
+    static List<String> jarClassNames(File jar) throws IOException {
+        try (JarFile file = new JarFile(jar, true, ZipFile.OPEN_READ, Runtime.version())) {
+            return file.versionedStream()
+                    .filter(Predicate.not(JarEntry::isDirectory))
+                    .map(JarEntry::getName)
+                    .filter(FileSource::isClassEntry)
+                    .map(FileSource::classNameFromEntry)
+                    .toList();
+        }
+    }
+
+    static String classNameFromEntry(String entry) {
+        return entry.substring(0, entry.length() - CLASS_SUFFIX.length())
+                .replace('/', '.');
+    }
+
     @Override
     public List<URL> configure() {
         try {
@@ -55,40 +130,46 @@ public class FileSource extends Source {
     }
 
     @Override
-    public Stream<Class<?>> classStream() {
+    public Stream<Path> files() {
+        if (!isDirectory())
+            return Stream.of(path);
+
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).toList().stream();
+        }
+        catch (IOException ex) {
+            return Stream.of(path);
+        }
+    }
+
+    @Override
+    public Stream<String> classNames() {
         File f = path.toFile();
-        List<String> entries;
 
         // Returns stream of class names within a JAR.  Note: these class names might not be valid Java identifiers,
         // especially in the case of inner classes or JAR files generated by something other than the Java compiler.
         try {
             if (f.isFile())
-                try (java.util.jar.JarFile file = new java.util.jar.JarFile(f)) {
-                    entries = file.stream()
-                            .filter(Predicate.not(JarEntry::isDirectory))
-                            .map(JarEntry::getName)
-                            .toList();
-                }
-            else if (f.isDirectory())
+                return jarClassNames(f).stream();
+            else if (stamps != null && !f.exists())
+                return Stream.empty();      // Deleted while being tracked
+            else if (f.isDirectory()) {
+                List<String> entries;
                 try (Stream<Path> stream = Files.walk(path)) {
                     entries = stream
                             .map(path::relativize)
                             .map(Path::toString)
                             .toList();
                 }
+                return entries.stream()
+                        .filter(FileSource::isClassEntry)
+                        .map(FileSource::classNameFromEntry);
+            }
             else
                 throw new JuggleError("Not a file or directory: `%s'".formatted(f));
         }
         catch (IOException ex) {
             throw new JuggleError(ex.getLocalizedMessage());
         }
-
-        return entries.stream()
-                .filter(s -> s.endsWith(CLASS_SUFFIX))
-                .filter(s -> !s.endsWith(MODULE_INFO))
-                .map(s -> s.substring(0, s.length() - CLASS_SUFFIX.length()))
-                .map(s -> s.replace('/', '.'))
-                .map(n -> getJuggler().loadClassByName(n))
-                .flatMap(Optional::stream);
     }
 }
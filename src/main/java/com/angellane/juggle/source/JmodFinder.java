@@ -0,0 +1,121 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds modules packaged as JMOD files on a module path.
+ * <p>
+ * Each element of the path may be a JMOD file, or a directory containing
+ * them.  As with a regular module path, if two JMODs contain the same
+ * module, the first one found wins.
+ */
+public class JmodFinder implements ModuleFinder {
+    private static final String JMOD_SUFFIX = ".jmod";
+    private static final String MODULE_INFO = "module-info.class";
+
+    /**
+     * A module found in a JMOD file.  Reading it gives a JmodReader.
+     */
+    public static class JmodReference extends ModuleReference {
+        private final Path path;
+
+        JmodReference(ModuleDescriptor descriptor, Path path) {
+            super(descriptor, path.toUri());
+            this.path = path;
+        }
+
+        @Override
+        public JmodReader open() throws IOException {
+            return new JmodReader(path);
+        }
+    }
+
+    private final Map<String, ModuleReference> modules = new LinkedHashMap<>();
+
+    public JmodFinder(Path... paths) {
+        for (Path p : paths)
+            jmodFiles(p).forEach(jmod -> {
+                ModuleReference ref = reference(jmod);
+                modules.putIfAbsent(ref.descriptor().name(), ref);
+            });
+    }
+
+    private static List<Path> jmodFiles(Path p) {
+        if (Files.isDirectory(p))
+            try (Stream<Path> entries = Files.list(p)) {
+                return entries
+                        .filter(f -> f.toString().endsWith(JMOD_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            catch (IOException | UncheckedIOException ex) {
+                throw new FindException(ex);
+            }
+        else if (p.toString().endsWith(JMOD_SUFFIX) && Files.isRegularFile(p))
+            return List.of(p);
+        else
+            return List.of();
+    }
+
+    private static ModuleReference reference(Path jmod) {
+        try (ModuleReader reader = new JmodReader(jmod)) {
+            Set<String> packages = reader.list()
+                    .filter(s -> s.endsWith(".class") && !s.equals(MODULE_INFO))
+                    .filter(s -> s.lastIndexOf('/') != -1)
+                    .map(s -> s.substring(0, s.lastIndexOf('/')).replace('/', '.'))
+                    .collect(Collectors.toSet());
+
+            Optional<InputStream> info = reader.open(MODULE_INFO);
+            if (info.isEmpty())
+                throw new FindException("No module-info in %s".formatted(jmod));
+
+            try (InputStream is = info.get()) {
+                return new JmodReference(
+                        ModuleDescriptor.read(is, () -> packages), jmod);
+            }
+        }
+        catch (IOException | IllegalArgumentException ex) {
+            // (InvalidModuleDescriptorException is an IllegalArgumentException)
+            throw new FindException("Couldn't read %s".formatted(jmod), ex);
+        }
+    }
+
+    @Override
+    public Optional<ModuleReference> find(String name) {
+        return Optional.ofNullable(modules.get(name));
+    }
+
+    @Override
+    public Set<ModuleReference> findAll() {
+        return Set.copyOf(modules.values());
+    }
+}
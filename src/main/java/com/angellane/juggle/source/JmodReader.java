@@ -0,0 +1,98 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the classes and resources in a JMOD file.
+ * <p>
+ * A JMOD is a zip file (after a short header) whose classes and resources
+ * live under classes/.  The runtime's own module readers won't read JMODs
+ * outside of jlink, and URLClassLoader can't see past the classes/ prefix,
+ * so Juggle reads them itself.  The zip file is opened once and can be read
+ * from several threads at once.
+ */
+public class JmodReader implements ModuleReader {
+    private static final String CLASSES = "classes/";
+
+    private final Path path;
+    private final ZipFile zip;
+
+    public JmodReader(Path path) throws IOException {
+        this.path = path;
+        this.zip = new ZipFile(path.toFile());
+    }
+
+    private Optional<ZipEntry> entry(String name) {
+        return Optional.ofNullable(zip.getEntry(CLASSES + name))
+                .filter(e -> !e.isDirectory());
+    }
+
+    @Override
+    public Optional<URI> find(String name) {
+        return entry(name).map(e ->
+                URI.create("jar:" + path.toUri() + "!/" + e.getName()));
+    }
+
+    @Override
+    public Optional<InputStream> open(String name) throws IOException {
+        Optional<ZipEntry> e = entry(name);
+        return e.isEmpty()
+                ? Optional.empty()
+                : Optional.of(zip.getInputStream(e.get()));
+    }
+
+    @Override
+    public Optional<ByteBuffer> read(String name) throws IOException {
+        Optional<ZipEntry> e = entry(name);
+        if (e.isEmpty())
+            return Optional.empty();
+
+        try (InputStream is = zip.getInputStream(e.get())) {
+            return Optional.of(ByteBuffer.wrap(is.readAllBytes()));
+        }
+    }
+
+    @Override
+    public Stream<String> list() {
+        // Listed up-front, like the JDK's readers, so the stream can still
+        // be used after the reader is closed
+        return zip.stream()
+                .filter(e -> !e.isDirectory())
+                .map(ZipEntry::getName)
+                .filter(s -> s.startsWith(CLASSES))
+                .map(s -> s.substring(CLASSES.length()))
+                .toList()
+                .stream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+}
@@ -17,6 +17,8 @@
  */
 package com.angellane.juggle.source;
 
+import com.angellane.juggle.index.JdkIndex;
+
 import java.io.IOException;
 import java.lang.module.*;
 import java.net.MalformedURLException;
@@ -40,6 +42,8 @@ public class Module extends Source {
     }
 
     private final Set<ResolvedModule> mods = new HashSet<>();
+    private final Set<String> exportedPackages = new HashSet<>();
+    private final List<ModuleReader> jmodReaders = new ArrayList<>();
 
     @Override
     public List<URL> configure() {
@@ -50,9 +54,15 @@ public class Module extends Source {
                 .toList()
                 .toArray(new Path[0]);
 
+        // System modules are found in the boot layer where possible, rather
+        // than resolved afresh: an automatic module reads every module, and
+        // mustn't find two of java.base
         Configuration modConf = ModuleLayer.boot().configuration().resolve(
+                ModuleFinder.compose(
+                        ModuleFinder.of(paths),
+                        new JmodFinder(paths)   // ModuleFinder.of() ignores JMODs
+                ),
                 ModuleFinder.ofSystem(),
-                ModuleFinder.of(paths),
                 modNames);
 
         return addTransitiveModules(modConf, moduleName).stream()
@@ -71,7 +81,18 @@ public class Module extends Source {
         assert mod != null;
 
         mods.add(mod);
-        mod.reference().location().ifPresent(ret::add);
+        exportedPackages.addAll(exportedPackages(mod.reference().descriptor()));
+
+        if (mod.reference() instanceof JmodFinder.JmodReference jmod)
+            // URLClassLoader can't read JMODs, so classes are read directly
+            try {
+                jmodReaders.add(jmod.open());
+            }
+            catch (IOException ex) {
+                throw new FindException(ex);
+            }
+        else
+            mod.reference().location().ifPresent(ret::add);
 
         // Find transitively required modules ("implied read")
 
@@ -87,24 +108,84 @@ public class Module extends Source {
     }
 
     @Override
-    public Stream<Class<?>> classStream() {
+    public Stream<Path> files() {
+        // System modules are identified by the runtime's version
+        return mods.stream()
+                .map(m -> m.reference().location())
+                .flatMap(Optional::stream)
+                .filter(uri -> "file".equals(uri.getScheme()))
+                .map(Path::of);
+    }
+
+    @Override
+    public Stream<String> moduleNames() {
+        return mods.stream().map(ResolvedModule::name).sorted();
+    }
+
+    @Override
+    public Stream<String> classNames() {
         return mods.stream()
-                .flatMap(mod -> {
-                    Stream<Class<?>> ret = Stream.empty();
-                    try (ModuleReader reader = mod.reference().open()) {
-                        ret = reader.list()
-                                .filter(s -> s.endsWith(CLASS_SUFFIX))
-                                .map(s -> s.substring(0, s.length() - CLASS_SUFFIX.length()))
-                                .filter(s -> !s.equals(MODULE_INFO))
-                                .map(s -> s.replace('/', '.'))
-                                .map(n -> getJuggler().loadClassByName(n))
-                                .flatMap(Optional::stream)
-                                // Ignore classes in packages that aren't exported
-                                .filter(c -> c.getModule().isExported(c.getPackageName()))
-                        ;
-                    }
-                    catch (IOException ignored) {}
-                    return ret;
-                });
+                .flatMap(mod -> indexedClassNames(mod)
+                        .map(List::stream)
+                        .orElseGet(() -> listClassNames(mod)));
+    }
+
+    private static Optional<List<String>> indexedClassNames(ResolvedModule mod) {
+        // Only modules from the runtime image are in the JDK index
+        boolean isSystemModule = mod.reference().location()
+                .map(uri -> "jrt".equals(uri.getScheme()))
+                .orElse(false);
+
+        return isSystemModule
+                ? JdkIndex.forRuntime().flatMap(index -> index.classNames(mod.name()))
+                : Optional.empty();
+    }
+
+    private static Stream<String> listClassNames(ResolvedModule mod) {
+        Stream<String> ret = Stream.empty();
+        try (ModuleReader reader = mod.reference().open()) {
+            ret = reader.list()
+                    .filter(s -> s.endsWith(CLASS_SUFFIX))
+                    .map(s -> s.substring(0, s.length() - CLASS_SUFFIX.length()))
+                    .filter(s -> !s.equals(MODULE_INFO))
+                    .map(s -> s.replace('/', '.'))
+            ;
+        }
+        catch (IOException ignored) {}
+        return ret;
+    }
+
+    @Override
+    public List<ModuleReader> moduleReaders() {
+        return jmodReaders;
+    }
+
+    /**
+     * Only classes in exported packages are searched.  Qualified exports
+     * (to specific modules) don't count, since they're not visible to us.
+     * An automatic module (a plain JAR on the module path) exports all its
+     * packages, though its descriptor doesn't list any exports.
+     *
+     * @param descriptor a module descriptor
+     * @return the names of the packages that the module exports to everyone
+     */
+    public static Set<String> exportedPackages(ModuleDescriptor descriptor) {
+        if (descriptor.isAutomatic())
+            return new HashSet<>(descriptor.packages());
+
+        Set<String> ret = new HashSet<>();
+        descriptor.exports().stream()
+                .filter(e -> !e.isQualified())
+                .map(ModuleDescriptor.Exports::source)
+                .forEach(ret::add);
+        return ret;
+    }
+
+    @Override
+    public boolean isSearchable(String name) {
+        // Ignore classes in packages that aren't exported
+        int lastDot = name.lastIndexOf('.');
+        return lastDot != -1
+                && exportedPackages.contains(name.substring(0, lastDot));
     }
 }
@@ -0,0 +1,201 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.JuggleError;
+import com.angellane.juggle.index.RepositoryIndex;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Every library in one or more local Maven repositories
+ * (~/.m2/repository) or Gradle caches (~/.gradle/caches/modules-2).
+ * <p>
+ * Caches typically hold several versions of each library, and the same
+ * library may be in more than one cache; only the newest version of each
+ * is searched.  Listing the classes in thousands of JARs is slow, so the
+ * JARs are listed in parallel, and the listings are kept in a
+ * RepositoryIndex so that later runs only read JARs that have changed.
+ */
+public class RepositorySource extends Source {
+    public static final String GRADLE_FILES = "files-2.1";
+    private static final String JAR_SUFFIX = ".jar";
+
+    private final List<Path> roots = new ArrayList<>();
+    private final Path indexFile;
+
+    private List<Artifact> artifacts = List.of();
+    private Map<Path, List<String>> classNamesByJar = Map.of();
+
+    /**
+     * @param indexFile where to keep listings between runs, or null not to
+     */
+    public RepositorySource(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * @return where the index is kept if the user doesn't say otherwise
+     */
+    public static Path defaultIndexFile() {
+        String cache = System.getenv("XDG_CACHE_HOME");
+        Path dir = cache != null && !cache.isEmpty()
+                ? Path.of(cache)
+                : Path.of(System.getProperty("user.home"), ".cache");
+        return dir.resolve("juggle").resolve("repository.idx");
+    }
+
+    public void addRoot(Path root) {
+        roots.add(root);
+    }
+
+    /**
+     * @return the artifacts being searched, after configure()
+     */
+    public List<Artifact> getArtifacts() {
+        return artifacts;
+    }
+
+    @Override
+    public List<URL> configure() {
+        artifacts = newestVersions(discover());
+
+        RepositoryIndex index = indexFile == null
+                ? new RepositoryIndex()
+                : RepositoryIndex.load(indexFile);
+
+        // parallelStream() keeps the results in artifact order
+        List<Map.Entry<Artifact, Optional<List<String>>>> listings =
+                artifacts.parallelStream()
+                        .map(a -> Map.entry(a, listClassNames(a.jar(), index)))
+                        .toList();
+
+        classNamesByJar = new LinkedHashMap<>();
+        for (Map.Entry<Artifact, Optional<List<String>>> e : listings)
+            e.getValue().ifPresentOrElse(
+                    names -> classNamesByJar.put(e.getKey().jar(), names),
+                    () -> getJuggler().warn("Couldn't read %s (%s)"
+                            .formatted(e.getKey().jar(), e.getKey())));
+
+        index.retainAll(classNamesByJar.keySet());
+        if (indexFile != null && index.isChanged())
+            try {
+                index.save(indexFile);
+            }
+            catch (IOException ex) {
+                getJuggler().warn("Couldn't save repository index %s: %s"
+                        .formatted(indexFile, ex.getLocalizedMessage()));
+            }
+
+        List<URL> urls = new ArrayList<>();
+        for (Path jar : classNamesByJar.keySet())
+            try {
+                urls.add(jar.toUri().toURL());
+            }
+            catch (MalformedURLException ex) {
+                throw new JuggleError(ex.getLocalizedMessage());
+            }
+        return urls;
+    }
+
+    @Override
+    public Stream<Path> files() {
+        return artifacts.stream().map(Artifact::jar);
+    }
+
+    @Override
+    public Stream<String> classNames() {
+        return classNamesByJar.values().stream().flatMap(List::stream);
+    }
+
+    // Finds the main JAR of every artifact in every root
+    private List<Artifact> discover() {
+        List<Artifact> ret = new ArrayList<>();
+
+        for (Path root : roots) {
+            if (!Files.isDirectory(root))
+                throw new JuggleError("Couldn't locate %s".formatted(root));
+
+            // Accept either Gradle's modules-2 directory or the files-2.1 in it
+            Path base = Files.isDirectory(root.resolve(GRADLE_FILES))
+                    ? root.resolve(GRADLE_FILES)
+                    : root;
+            BiFunction<Path, Path, Optional<Artifact>> recogniser =
+                    base.endsWith(GRADLE_FILES)
+                            ? Artifact::fromGradlePath
+                            : Artifact::fromMavenPath;
+
+            try (Stream<Path> stream = Files.walk(base)) {
+                stream.filter(p -> p.getFileName().toString().endsWith(JAR_SUFFIX))
+                        .filter(Files::isRegularFile)
+                        .map(p -> recogniser.apply(base, p))
+                        .flatMap(Optional::stream)
+                        .forEach(ret::add);
+            }
+            catch (IOException ex) {
+                throw new JuggleError(ex.getLocalizedMessage());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Picks the newest version of each artifact.  Where the same version is
+     * in more than one root, the first root wins.
+     *
+     * @param all every artifact found
+     * @return one artifact per group and artifact ID, ordered by those
+     */
+    static List<Artifact> newestVersions(List<Artifact> all) {
+        Map<String, Artifact> newest = new TreeMap<>();
+        for (Artifact a : all)
+            newest.merge(a.key(), a, (old, a2) ->
+                    Artifact.VERSION_ORDER.compare(a2.version(), old.version()) > 0
+                            ? a2 : old);
+        return List.copyOf(newest.values());
+    }
+
+    private static Optional<List<String>> listClassNames(Path jar, RepositoryIndex index) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(jar, BasicFileAttributes.class);
+            long size = attrs.size();
+            long lastModified = attrs.lastModifiedTime().toMillis();
+
+            Optional<List<String>> indexed = index.classNames(jar, size, lastModified);
+            if (indexed.isPresent())
+                return indexed;
+
+            List<String> names = FileSource.jarClassNames(jar.toFile());
+
+            index.put(jar, size, lastModified, names);
+            return Optional.of(names);
+        }
+        catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+}
@@ -19,8 +19,10 @@ package com.angellane.juggle.source;
 
 import com.angellane.juggle.Juggler;
 
+import java.lang.module.ModuleReader;
 import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -32,5 +34,74 @@ public abstract class Source {
 
     public abstract List<URL> configure();
 
-    public abstract Stream<Class<?>> classStream();
+    /**
+     * Some sources can't be read by a URLClassLoader.  After configure(),
+     * these readers supply the bytes of any classes not found at the URLs.
+     *
+     * @return readers for this source's classes, if it needs them
+     */
+    public List<ModuleReader> moduleReaders() {
+        return List.of();
+    }
+
+    /**
+     * The files that this source's classes are read from, so that anything
+     * derived from them can tell when they might have changed.  Classes
+     * that are part of the Java runtime needn't be included.  Only valid
+     * after configure().
+     *
+     * @return paths of the files
+     */
+    public Stream<Path> files() {
+        return Stream.of();
+    }
+
+    /**
+     * The names of the modules that this source searches, which identify
+     * classes that files() leaves out (those in the Java runtime).  Only
+     * valid after configure().
+     *
+     * @return module names, in a stable order
+     */
+    public Stream<String> moduleNames() {
+        return Stream.of();
+    }
+
+    /**
+     * Lists the names of the classes in this source, without loading them.
+     * Listing is expected to be cheap relative to loading, so callers may
+     * gather names from several sources and then load them concurrently.
+     *
+     * @return names suitable for passing to loadClass()
+     */
+    public abstract Stream<String> classNames();
+
+    /**
+     * Loads one of the classes named by classNames().  Sources can override
+     * this to reject classes that shouldn't be searched.
+     *
+     * @param name a name from classNames()
+     * @return the class, or empty if it couldn't be loaded or is excluded
+     */
+    public Optional<Class<?>> loadClass(String name) {
+        return getJuggler().loadClassByName(name);
+    }
+
+    /**
+     * Decides from its name alone whether a class should be searched, so
+     * that classes that would only be thrown away needn't be loaded.
+     *
+     * @param name a name from classNames()
+     * @return false if the class needn't be loaded
+     */
+    public boolean isSearchable(String name) {
+        return true;
+    }
+
+    public Stream<Class<?>> classStream() {
+        return classNames()
+                .filter(this::isSearchable)
+                .map(this::loadClass)
+                .flatMap(Optional::stream);
+    }
 }
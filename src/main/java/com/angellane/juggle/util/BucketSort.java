@@ -0,0 +1,71 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Sorts elements that have a small, non-negative integer key.
+ * <p>
+ * Elements are distributed into one bucket per key value in a single pass,
+ * so ordering by the key itself is linear.  Ties within a bucket are then
+ * broken by a secondary comparator, which only ever compares elements that
+ * share a bucket.  Buckets are sorted lazily as the resulting stream is
+ * consumed, so the first bucket's elements can be consumed before later
+ * buckets have been sorted.
+ * <p>
+ * The result is the same as a stable sort by key then by the secondary
+ * comparator.
+ */
+public final class BucketSort {
+    private BucketSort() {}
+
+    /**
+     * @param elements the elements to sort
+     * @param key extracts each element's key, which must not be negative
+     * @param withinBucket orders elements that have the same key
+     * @return a stream of elements in ascending key order
+     * @param <T> the type of elements
+     */
+    public static <T> Stream<T> sorted(Stream<T> elements,
+                                       ToIntFunction<? super T> key,
+                                       Comparator<? super T> withinBucket) {
+        List<List<T>> buckets = new ArrayList<>();
+
+        elements.forEachOrdered(e -> {
+            int k = key.applyAsInt(e);
+            if (k < 0)
+                throw new IllegalArgumentException(
+                        "Negative sort key %d for %s".formatted(k, e));
+
+            while (buckets.size() <= k)
+                buckets.add(new ArrayList<>());
+            buckets.get(k).add(e);
+        });
+
+        return buckets.stream()
+                .flatMap(b -> {
+                    b.sort(withinBucket);
+                    return b.stream();
+                });
+    }
+}
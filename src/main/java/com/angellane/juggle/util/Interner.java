@@ -0,0 +1,72 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalises values so that equal values share a single instance.
+ * <p>
+ * Juggle creates a great many small immutable collections while building
+ * candidates (annotation sets, parameter lists, etc.), most of which are
+ * equal to one another.  Passing them through an Interner means only one
+ * copy of each distinct value is kept alive.
+ * <p>
+ * Values are held weakly, so a value is forgotten once nothing else refers
+ * to it.  Many values refer to classes, and holding on to those would keep
+ * every class loader that's been replaced (by --watch, say) alive too.
+ * <p>
+ * Values must be immutable, and must implement value-based equals and
+ * hashCode.
+ *
+ * @param <T> the type of values to intern
+ */
+public class Interner<T> {
+    // The canonical instance is both key and (weakly held) value
+    private final Map<T, WeakReference<T>> pool = new WeakHashMap<>();
+
+    /**
+     * Returns the canonical instance equal to value.  If no such instance
+     * has been seen before, value itself becomes the canonical instance.
+     *
+     * @param value the value to canonicalise
+     * @return an instance equal to value
+     */
+    public T intern(T value) {
+        synchronized (pool) {
+            WeakReference<T> ref = pool.get(value);
+            T existing = ref == null ? null : ref.get();
+            if (existing != null)
+                return existing;
+
+            pool.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return the number of distinct values interned and still in use
+     */
+    public int size() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+/**
+ * Writes JSON text straight into a StringBuilder, without building a tree
+ * of values first.  It's up to the caller to nest things properly; this
+ * only takes care of commas, quoting and escaping.
+ */
+public final class JsonWriter {
+    private final StringBuilder sb;
+    private boolean needComma = false;
+
+    public JsonWriter(StringBuilder sb) {
+        this.sb = sb;
+    }
+
+    private void separate() {
+        if (needComma)
+            sb.append(',');
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        sb.append('{');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        sb.append('}');
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        sb.append('[');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        sb.append(']');
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separate();
+        quote(sb, name);
+        sb.append(':');
+        needComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String s) {
+        separate();
+        if (s == null)
+            sb.append("null");
+        else
+            quote(sb, s);
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long n) {
+        separate();
+        sb.append(n);
+        needComma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean b) {
+        separate();
+        sb.append(b);
+        needComma = true;
+        return this;
+    }
+
+    /**
+     * Appends s as a JSON string: in quotes, with quotes, backslashes and
+     * control characters escaped.
+     *
+     * @param sb where to append it
+     * @param s the string
+     */
+    public static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"'  -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20)
+                        sb.append("\\u%04x".formatted((int) ch));
+                    else
+                        sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import java.util.*;
+
+/**
+ * Merges several already-sorted sequences into one sorted sequence.
+ * <p>
+ * Only the head of each input is held at any time, so inputs can be read
+ * lazily from, say, other processes.  Elements that compare equal are
+ * taken from earlier inputs first, so the merge is stable.
+ */
+public final class KWayMerge {
+    private KWayMerge() {}
+
+    private record Head<T>(T element, int input) {}
+
+    /**
+     * @param inputs iterators over sequences, each sorted by order
+     * @param order the ordering of the elements
+     * @return an iterator over all the elements of inputs, in order
+     * @param <T> the type of elements
+     */
+    public static <T> Iterator<T> merge(List<? extends Iterator<? extends T>> inputs,
+                                        Comparator<? super T> order) {
+        Comparator<Head<T>> headOrder =
+                Comparator.<Head<T>, T>comparing(Head::element, order)
+                        .thenComparingInt(Head::input);
+
+        PriorityQueue<Head<T>> heads =
+                new PriorityQueue<>(Math.max(1, inputs.size()), headOrder);
+        for (int i = 0; i < inputs.size(); ++i)
+            if (inputs.get(i).hasNext())
+                heads.add(new Head<>(inputs.get(i).next(), i));
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null)
+                    throw new NoSuchElementException();
+
+                Iterator<? extends T> input = inputs.get(head.input());
+                if (input.hasNext())
+                    heads.add(new Head<>(input.next(), head.input()));
+
+                return head.element();
+            }
+        };
+    }
+}
@@ -19,6 +19,7 @@ package com.angellane.juggle.util;
 
 import java.util.Objects;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -69,6 +70,44 @@ public record NegatablePattern(Pattern pattern, boolean positiveMatch) {
     }
 
 
+    /**
+     * Does this pattern only match text that the other matches too?  Only
+     * equal patterns, and a literal that contains another (unanchored)
+     * literal, are recognised.
+     *
+     * @param other another pattern
+     * @return true iff everything this matches, other matches
+     */
+    public boolean refines(NegatablePattern other) {
+        if (equals(other))
+            return true;
+        else if (!positiveMatch || !other.positiveMatch
+                || pattern.flags() != other.pattern.flags())
+            return false;
+
+        Matcher mine = EXACT_LITERAL.matcher(pattern.pattern());
+        String myText = mine.matches() && !mine.group(1).contains("\\E")
+                ? mine.group(1)
+                : PLAIN_LITERAL.matcher(pattern.pattern()).matches()
+                ? pattern.pattern()
+                : null;
+        String theirText = PLAIN_LITERAL.matcher(other.pattern.pattern()).matches()
+                ? other.pattern.pattern()
+                : null;
+
+        if (myText == null || theirText == null)
+            return false;
+        else if ((pattern.flags() & Pattern.CASE_INSENSITIVE) != 0)
+            return myText.toLowerCase().contains(theirText.toLowerCase());
+        else
+            return myText.contains(theirText);
+    }
+
+    // As made by QueryFactory for a name, and for a pattern with no specials
+    private static final Pattern EXACT_LITERAL = Pattern.compile("\\^\\\\Q(.*)\\\\E\\$");
+    private static final Pattern PLAIN_LITERAL = Pattern.compile("\\w+");
+
+
     // Because Pattern's `equals` and `hashCode` methods only consider identity
     // and not value equivalence, we derive our own `equals` and `hashCode`
     // methods here that manipulate the pattern's string version instead.
@@ -17,22 +17,118 @@
  */
 package com.angellane.juggle.util;
 
+import java.io.IOException;
+import java.lang.module.ModuleReader;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.security.ProtectionDomain;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Just like a regular URLClassLoader, but always resolves (links) classes at load time.
+ * <p>
+ * Like URLClassLoader it's parallel capable, so several threads can load
+ * (different) classes through it at the same time.
  */
 public class ResolvingURLClassLoader extends URLClassLoader {
+    static {
+        // Subclasses of parallel capable loaders must register separately
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public ResolvingURLClassLoader(URL[] urls) {
         super(urls);
     }
 
+    public ResolvingURLClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
     @Override
     public Class<?> loadClass(String name) throws ClassNotFoundException {
         return super.loadClass(name, true);
     }
 
+    private final List<ModuleReader> moduleReaders = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a source of class bytes for classes that aren't at any of this
+     * loader's URLs, such as those in JMOD files.
+     *
+     * @param reader a reader of the classes' module
+     */
+    public void addModuleReader(ModuleReader reader) {
+        moduleReaders.add(reader);
+    }
+
+    /**
+     * Closes the module readers as well as the loader's JARs.
+     *
+     * @throws IOException if any of them can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for (ModuleReader reader : moduleReaders)
+            try {
+                reader.close();
+            }
+            catch (IOException ex) {
+                if (failure == null)
+                    failure = ex;
+                else
+                    failure.addSuppressed(ex);
+            }
+        moduleReaders.clear();
+
+        try {
+            super.close();
+        }
+        catch (IOException ex) {
+            if (failure == null)
+                failure = ex;
+            else
+                failure.addSuppressed(ex);
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        try {
+            return super.findClass(name);
+        }
+        catch (ClassNotFoundException ex) {
+            String resourceName = name.replace('.', '/') + ".class";
+
+            for (ModuleReader reader : moduleReaders) {
+                Optional<ByteBuffer> bytes;
+                try {
+                    bytes = reader.read(resourceName);
+                }
+                catch (IOException ignored) {
+                    continue;
+                }
+
+                if (bytes.isPresent())
+                    try {
+                        return defineClass(name, bytes.get(), (ProtectionDomain) null);
+                    }
+                    finally {
+                        reader.release(bytes.get());
+                    }
+            }
+
+            throw ex;
+        }
+    }
+
     public void linkClass(Class<?> cls) {
         super.resolveClass(cls);
 
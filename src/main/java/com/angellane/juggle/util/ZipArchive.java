@@ -0,0 +1,193 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a zip archive (such as a JAR) held in a ByteBuffer.
+ * <p>
+ * Unlike ZipFile, this doesn't need the archive to be a file of its own, so
+ * it can read a JAR nested inside another JAR.  If the nested JAR is stored
+ * uncompressed, its buffer is just a slice of the outer one: nothing is
+ * copied or extracted.  The buffer may be a MappedByteBuffer, in which case
+ * only the parts of the file that are actually read are paged in.
+ * <p>
+ * Only the features that JAR files use are supported: stored and deflated
+ * entries, and data (such as a launch script) before the archive proper.
+ * Zip64 archives aren't supported.
+ */
+public final class ZipArchive {
+    private static final int EOCD_SIGNATURE         = 0x06054b50;
+    private static final int CEN_SIGNATURE          = 0x02014b50;
+    private static final int LOC_SIGNATURE          = 0x04034b50;
+    private static final int EOCD_LENGTH            = 22;
+    private static final int CEN_LENGTH             = 46;
+    private static final int LOC_LENGTH             = 30;
+    private static final int MAX_COMMENT_LENGTH     = 0xffff;
+
+    private static final int STORED    = 0;
+    private static final int DEFLATED  = 8;
+
+    public record Entry(String name, int method,
+                        long compressedSize, long size,
+                        long localHeaderOffset) {
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public ZipArchive(ByteBuffer buffer) throws ZipException {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        int eocd = findEndOfCentralDirectory();
+        int count    = u16(eocd + 10);
+        long cenSize = u32(eocd + 12);
+        long cenOff  = u32(eocd + 16);
+
+        if (count == 0xffff || cenSize == 0xffffffffL || cenOff == 0xffffffffL)
+            throw new ZipException("Zip64 archives aren't supported");
+
+        // Anything prepended to the archive shifts all of its offsets
+        long cenStart = eocd - cenSize;
+        long prefix = cenStart - cenOff;
+        if (cenStart < 0 || prefix < 0)
+            throw new ZipException("Bad central directory");
+
+        int pos = (int) cenStart;
+        for (int i = 0; i < count; ++i) {
+            if (pos + CEN_LENGTH > eocd || this.buffer.getInt(pos) != CEN_SIGNATURE)
+                throw new ZipException("Bad central directory entry");
+
+            int nameLength    = u16(pos + 28);
+            int extraLength   = u16(pos + 30);
+            int commentLength = u16(pos + 32);
+
+            Entry e = new Entry(
+                    string(pos + CEN_LENGTH, nameLength),
+                    u16(pos + 10),
+                    u32(pos + 20),
+                    u32(pos + 24),
+                    u32(pos + 42) + prefix);
+            entries.putIfAbsent(e.name(), e);
+
+            pos += CEN_LENGTH + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int limit = buffer.limit();
+        int stop = Math.max(0, limit - EOCD_LENGTH - MAX_COMMENT_LENGTH);
+        for (int pos = limit - EOCD_LENGTH; pos >= stop; --pos)
+            if (buffer.getInt(pos) == EOCD_SIGNATURE)
+                return pos;
+        throw new ZipException("Not a zip archive");
+    }
+
+    private int u16(int pos) {
+        return Short.toUnsignedInt(buffer.getShort(pos));
+    }
+
+    private long u32(int pos) {
+        return Integer.toUnsignedLong(buffer.getInt(pos));
+    }
+
+    private String string(int pos, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(pos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the archive's entries, in central directory order
+     */
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public Optional<Entry> entry(String name) {
+        return Optional.ofNullable(entries.get(name));
+    }
+
+    /**
+     * Returns an entry's (uncompressed) contents.  For a stored entry this is
+     * a read-only view onto the archive's own buffer; a deflated entry is
+     * inflated into a new buffer.
+     *
+     * @param e an entry of this archive
+     * @return the contents of e
+     * @throws ZipException if the entry can't be read
+     */
+    public ByteBuffer contents(Entry e) throws ZipException {
+        if (e.localHeaderOffset() + LOC_LENGTH > buffer.limit()
+                || buffer.getInt((int) e.localHeaderOffset()) != LOC_SIGNATURE)
+            throw new ZipException("Bad local header for " + e.name());
+
+        int loc = (int) e.localHeaderOffset();
+        long start = loc + LOC_LENGTH + u16(loc + 26) + u16(loc + 28);
+        if (start + e.compressedSize() > buffer.limit())
+            throw new ZipException("Truncated entry " + e.name());
+
+        ByteBuffer data = buffer.slice((int) start, (int) e.compressedSize())
+                .asReadOnlyBuffer();
+
+        return switch (e.method()) {
+            case STORED     -> data;
+            case DEFLATED   -> inflate(data, e);
+            default         -> throw new ZipException(
+                    "Unsupported compression method %d for %s"
+                            .formatted(e.method(), e.name()));
+        };
+    }
+
+    private static ByteBuffer inflate(ByteBuffer data, Entry e)
+            throws ZipException {
+        if (e.size() > Integer.MAX_VALUE)
+            throw new ZipException("Entry too large: " + e.name());
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            ByteBuffer out = ByteBuffer.allocate((int) e.size());
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0
+                        && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+            }
+            if (out.hasRemaining())
+                throw new ZipException("Truncated entry " + e.name());
+            return out.flip();
+        }
+        catch (DataFormatException ex) {
+            throw new ZipException("Bad compressed data in %s: %s"
+                    .formatted(e.name(), ex.getMessage()));
+        }
+        finally {
+            inflater.end();
+        }
+    }
+}
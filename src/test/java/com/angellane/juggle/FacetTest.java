@@ -0,0 +1,112 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.query.BoundedType;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.ParamSpec;
+import com.angellane.juggle.query.TypeFlavour;
+import com.angellane.juggle.query.TypeQuery;
+import com.angellane.juggle.util.NegatablePattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetTest {
+    private static Juggler deprecatedMembers() {
+        Juggler juggler = new Juggler();
+        juggler.configureAllSources();
+        juggler.filterUnutterableClasses();
+
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.setAnnotationTypes(Set.of(Deprecated.class));
+        juggler.setMemberQuery(q);
+        return juggler;
+    }
+
+    @Test
+    public void testCountMatchesAgreesWithMatches() {
+        long expected = deprecatedMembers().matches().count();
+
+        assertTrue(expected > 0);
+        assertEquals(expected, deprecatedMembers().countMatches());
+    }
+
+    @Test
+    public void testCountMatchesBy() {
+        long expected = deprecatedMembers().countMatches();
+
+        for (Facet facet : Facet.values()) {
+            List<Map.Entry<String, Long>> counts =
+                    deprecatedMembers().countMatchesBy(facet);
+
+            assertEquals(expected,
+                    counts.stream().mapToLong(Map.Entry::getValue).sum(),
+                    facet.toString());
+
+            // Most first
+            for (int i = 1; i < counts.size(); ++i)
+                assertTrue(counts.get(i - 1).getValue() >= counts.get(i).getValue());
+        }
+
+        assertEquals(List.of(Map.entry("java.base", expected)),
+                deprecatedMembers().countMatchesBy(Facet.MODULE));
+    }
+
+    @Test
+    public void testVarargsAreNotTransient() {
+        Juggler juggler = new Juggler();
+        juggler.configureAllSources();
+
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.setNamePattern(NegatablePattern.compile("^format$"));
+        q.params = List.of(ParamSpec.param(String.class),
+                ParamSpec.param(Object[].class));
+        juggler.setMemberQuery(q);
+
+        // Such as public static String String.format(String, Object...)
+        List<Map.Entry<String, Long>> counts = juggler.countMatchesBy(Facet.MODIFIER);
+        assertEquals(List.of("public static"),
+                counts.stream().map(Map.Entry::getKey).toList());
+    }
+
+    @Test
+    public void testTypeFacets() {
+        Juggler juggler = new Juggler();
+        juggler.configureAllSources();
+
+        TypeQuery q = new TypeQuery(TypeFlavour.CLASS);
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.setSupertype(BoundedType.subtypeOf(java.util.AbstractList.class));
+        juggler.setTypeQuery(q);
+
+        long expected = juggler.matches().count();
+        List<Map.Entry<String, Long>> byClass = juggler.countMatchesBy(Facet.CLASS);
+
+        assertTrue(expected > 0);
+        assertEquals(expected, byClass.size());
+        assertTrue(byClass.stream().allMatch(e -> e.getValue() == 1));
+    }
+}
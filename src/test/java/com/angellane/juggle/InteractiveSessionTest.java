@@ -0,0 +1,191 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.candidate.Candidate;
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.BoundedType;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.ParamSpec;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.query.TypeFlavour;
+import com.angellane.juggle.query.TypeQuery;
+import com.angellane.juggle.sink.Sink;
+import com.angellane.juggle.util.NegatablePattern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InteractiveSessionTest {
+    Juggler juggler;
+    InteractiveSession session;
+
+    @BeforeEach
+    public void setUp() {
+        juggler = new Juggler();
+        juggler.configureAllSources();
+        juggler.filterUnutterableClasses();
+        session = new InteractiveSession(juggler);
+    }
+
+    static MemberQuery stringMethods() {
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.params = List.of(ParamSpec.param(String.class), ParamSpec.ellipsis());
+        return q;
+    }
+
+    static MemberQuery staticIntStringMethods() {
+        MemberQuery q = stringMethods();
+        q.setModifiersAndMask(Modifier.STATIC, Modifier.STATIC);
+        q.returnType = BoundedType.exactType(Integer.TYPE);
+        return q;
+    }
+
+    static List<String> describe(List<Match<?, ?>> matches) {
+        return matches.stream().map(m -> m.candidate().toString()).toList();
+    }
+
+    @Test
+    public void testRefinement() {
+        List<Match<?, ?>> broad = session.search(stringMethods());
+        assertFalse(session.wasRefined());
+
+        List<Match<?, ?>> narrow = session.search(staticIntStringMethods());
+        assertTrue(session.wasRefined());
+        assertTrue(narrow.size() < broad.size());
+
+        // Same as searching every class
+        Juggler fresh = new Juggler();
+        fresh.configureAllSources();
+        fresh.filterUnutterableClasses();
+        fresh.setQuery(staticIntStringMethods());
+        assertEquals(describe(fresh.matches().toList()), describe(narrow));
+    }
+
+    @Test
+    public void testNonRefinementSearchesEverything() {
+        session.search(staticIntStringMethods());
+
+        MemberQuery other = stringMethods();
+        other.setNamePattern(NegatablePattern.compile("valueOf"));
+        List<Match<?, ?>> matches = session.search(other);
+
+        assertFalse(session.wasRefined());
+        assertTrue(matches.stream()
+                .anyMatch(m -> m.candidate().toString().contains("String.valueOf")));
+    }
+
+    @Test
+    public void testSwitchingBetweenTypeAndMemberQueries() {
+        TypeQuery types = new TypeQuery(TypeFlavour.CLASS);
+        types.setAccessibility(Accessibility.PUBLIC);
+        types.setSupertype(BoundedType.subtypeOf(java.util.AbstractList.class));
+
+        List<Match<?, ?>> typeMatches = session.search(types);
+        assertFalse(typeMatches.isEmpty());
+        assertTrue(typeMatches.stream()
+                .allMatch(m -> m.candidate() instanceof TypeCandidate));
+
+        List<Match<?, ?>> memberMatches = session.search(stringMethods());
+        assertFalse(memberMatches.isEmpty());
+        assertTrue(memberMatches.stream()
+                .allMatch(m -> m.candidate() instanceof MemberCandidate));
+
+        assertEquals(describe(typeMatches), describe(session.search(types)));
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        Map<String, Query<?>> queries = Map.of(
+                "broad", stringMethods(),
+                "narrow", staticIntStringMethods());
+
+        List<Candidate> output = new ArrayList<>();
+        int[] flushes = { 0 };
+        Sink sink = new Sink() {
+            @Override
+            public void accept(Candidate candidate) {
+                output.add(candidate);
+            }
+
+            @Override
+            public void flush() {
+                ++flushes[0];
+            }
+        };
+
+        session.run(new BufferedReader(new StringReader("broad\n\n  narrow  \n")),
+                null, queries::get, sink, () -> {});
+
+        assertEquals(2, flushes[0]);
+        assertTrue(session.wasRefined());
+        assertEquals(session.search(stringMethods()).size()
+                        + session.search(staticIntStringMethods()).size(),
+                output.size());
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    public @interface Marked {}
+
+    public static class Annotated {
+        public void annotatedParam(@Marked String s) {}
+    }
+
+    @Test
+    public void testParamAnnotationsAreNotRefined() {
+        Juggler juggler = new Juggler();
+        juggler.addClassPathEntry(Path.of(Annotated.class.getProtectionDomain()
+                .getCodeSource().getLocation().getPath()).toString());
+        juggler.configureAllSources();
+        InteractiveSession session = new InteractiveSession(juggler);
+
+        MemberQuery byName = new MemberQuery();
+        byName.setNamePattern(NegatablePattern.compile("annotatedParam"));
+        assertEquals(1, session.search(byName).size());
+
+        MemberQuery byAnnotation = new MemberQuery();
+        byAnnotation.setNamePattern(NegatablePattern.compile("annotatedParam"));
+        byAnnotation.params = List.of(ParamSpec.wildcard(),     // this
+                ParamSpec.wildcard(Set.of(Marked.class), 0, 0));
+        assertFalse(byAnnotation.refines(byName));
+
+        List<Match<?, ?>> matches = session.search(byAnnotation);
+        assertFalse(session.wasRefined());
+        assertEquals(1, matches.size());
+    }
+}
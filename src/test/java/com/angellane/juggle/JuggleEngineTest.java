@@ -0,0 +1,197 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.BoundedType;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.ParamSpec;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.query.TypeQuery;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JuggleEngineTest {
+    static JuggleEngine engine;
+
+    @BeforeAll
+    public static void load() {
+        engine = JuggleEngine.load(List.of(), List.of(), List.of());
+    }
+
+    @AfterAll
+    public static void close() throws IOException {
+        engine.close();
+    }
+
+    static MemberQuery clockQuery() {
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.returnType = BoundedType.exactType(LocalTime.class);
+        q.params = List.of(ParamSpec.param(Clock.class));
+        return q;
+    }
+
+    static MemberQuery stringIntQuery() {
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.returnType = BoundedType.exactType(String.class);
+        q.params = List.of(ParamSpec.param(int.class), ParamSpec.param(String.class));
+        return q;
+    }
+
+    static TypeQuery listQuery() {
+        TypeQuery q = new TypeQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.setSupertype(BoundedType.subtypeOf(AbstractList.class));
+        return q;
+    }
+
+    static List<String> results(Query<?> query, SearchOptions options) {
+        return engine.search(query, options)
+                .map(Match::candidate)
+                .map(c -> c instanceof MemberCandidate mc
+                        ? mc.member().toString()
+                        : ((TypeCandidate) c).clazz().getName())
+                .toList();
+    }
+
+    @Test
+    public void testSearch() {
+        assertEquals(List.of("public static java.time.LocalTime java.time.LocalTime.now(java.time.Clock)"),
+                results(clockQuery(), SearchOptions.DEFAULTS));
+        assertTrue(engine.classes().contains(LocalTime.class));
+    }
+
+    @Test
+    public void testOptionsApplyToOneSearchOnly() {
+        SearchOptions permute = SearchOptions.DEFAULTS.withPermuteParams(true);
+
+        List<String> unpermuted = results(stringIntQuery(), SearchOptions.DEFAULTS);
+        List<String> permuted = results(stringIntQuery(), permute);
+
+        assertTrue(permuted.size() > unpermuted.size());
+        assertTrue(permuted.containsAll(unpermuted));
+        assertEquals(unpermuted, results(stringIntQuery(), SearchOptions.DEFAULTS));
+    }
+
+    @Test
+    public void testSortCriteria() {
+        List<String> byName = engine.search(listQuery(),
+                        SearchOptions.DEFAULTS.withSortCriteria(SortCriteria.NAME))
+                .map(m -> m.candidate().simpleName())
+                .toList();
+        List<String> byDefault = engine.search(listQuery(), SearchOptions.DEFAULTS)
+                .map(m -> m.candidate().simpleName())
+                .toList();
+
+        assertNotEquals(byDefault, byName);
+        assertEquals(byDefault.stream().sorted().toList(), byName);
+    }
+
+    @Test
+    public void testStreaming() {
+        Set<String> sorted = Set.copyOf(results(listQuery(), SearchOptions.DEFAULTS));
+        Set<String> streamed = Set.copyOf(results(listQuery(),
+                SearchOptions.DEFAULTS.withStreaming(true).withParallel(true)));
+
+        assertEquals(sorted, streamed);
+    }
+
+    @Test
+    public void testConcurrentSearches() throws Exception {
+        List<Query<?>> queries = List.of(clockQuery(), stringIntQuery(), listQuery());
+        List<SearchOptions> options = List.of(
+                SearchOptions.DEFAULTS,
+                SearchOptions.DEFAULTS.withPermuteParams(true),
+                SearchOptions.DEFAULTS.withParallel(true).withImports("java.util"));
+
+        Map<String, List<String>> expected = new HashMap<>();
+        for (int q = 0; q < queries.size(); ++q)
+            for (int o = 0; o < options.size(); ++o)
+                expected.put(q + "/" + o, results(queries.get(q), options.get(o)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Map.Entry<String, List<String>>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; ++i)
+                for (int q = 0; q < queries.size(); ++q)
+                    for (int o = 0; o < options.size(); ++o) {
+                        Query<?> query = queries.get(q);
+                        SearchOptions option = options.get(o);
+                        String key = q + "/" + o;
+                        tasks.add(() -> Map.entry(key, results(query, option)));
+                    }
+
+            for (Future<Map.Entry<String, List<String>>> f : pool.invokeAll(tasks)) {
+                Map.Entry<String, List<String>> e = f.get();
+                assertEquals(expected.get(e.getKey()), e.getValue(), e.getKey());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        SearchResult all = engine.searchAll(clockQuery(),
+                SearchOptions.DEFAULTS.withTimeout(Duration.ofMinutes(10)));
+        assertFalse(all.partial());
+        assertEquals(all.classesToSearch(), all.classesSearched());
+        assertEquals(1, all.matches().size());
+
+        SearchResult none = engine.searchAll(listQuery(),
+                SearchOptions.DEFAULTS.withTimeout(Duration.ZERO));
+        assertTrue(none.partial());
+        assertEquals(0, none.classesSearched());
+        assertEquals(List.of(), none.matches());
+    }
+
+    @Test
+    public void testTimeoutStopsPermutation() {
+        // Every permutation of every method's parameters would take a very
+        // long time to score
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        q.params = List.of(ParamSpec.ellipsis());
+
+        SearchResult some = engine.searchAll(q, SearchOptions.DEFAULTS
+                .withPermuteParams(true)
+                .withTimeout(Duration.ofMillis(200)));
+
+        assertTrue(some.partial());
+        assertTrue(some.classesSearched() < some.classesToSearch());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle;
+
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.TypeQuery;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchPublisherTest {
+    static JuggleEngine engine;
+
+    @BeforeAll
+    public static void load() {
+        engine = JuggleEngine.load(List.of(), List.of(), List.of());
+    }
+
+    @AfterAll
+    public static void close() throws IOException {
+        engine.close();
+    }
+
+    static MemberQuery everyMember() {
+        MemberQuery q = new MemberQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        return q;
+    }
+
+    static TypeQuery everyPublicType() {
+        TypeQuery q = new TypeQuery();
+        q.setAccessibility(Accessibility.PUBLIC);
+        return q;
+    }
+
+    static class Recorder implements Flow.Subscriber<Match<?, ?>> {
+        final List<Match<?, ?>> matches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Match<?, ?> item) {
+            matches.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void testPublishesSameMatchesAsSearch() throws InterruptedException {
+        Recorder r = new Recorder();
+        engine.publish(everyPublicType(), SearchOptions.DEFAULTS).subscribe(r);
+        r.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(r.done.await(1, TimeUnit.MINUTES));
+        assertTrue(r.completed);
+        assertNull(r.error);
+        assertEquals(engine.search(everyPublicType(), SearchOptions.DEFAULTS).toList(),
+                r.matches);
+    }
+
+    /**
+     * Waits for a recorder to receive the expected number of matches, then
+     * a little longer to check that no more arrive.
+     */
+    static void assertReceives(int expected, Recorder r) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (r.matches.size() < expected && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        Thread.sleep(100);
+        assertEquals(expected, r.matches.size());
+    }
+
+    @Test
+    public void testHonoursDemand() throws InterruptedException {
+        Recorder r = new Recorder();
+        engine.publish(everyMember(), SearchOptions.DEFAULTS.withStreaming(true))
+                .subscribe(r);
+        assertReceives(0, r);
+
+        r.subscription.request(1);
+        assertReceives(1, r);
+
+        r.subscription.request(2);
+        assertReceives(3, r);
+        assertFalse(r.completed);
+
+        r.subscription.cancel();
+    }
+
+    @Test
+    public void testCancelStopsSearch() throws InterruptedException {
+        Thread[] worker = new Thread[1];
+        Executor executor = search -> {
+            worker[0] = new Thread(search);
+            worker[0].start();
+        };
+
+        Recorder r = new Recorder() {
+            @Override
+            public void onNext(Match<?, ?> item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        engine.publish(everyMember(), SearchOptions.DEFAULTS.withStreaming(true),
+                executor).subscribe(r);
+        r.subscription.request(Long.MAX_VALUE);
+
+        worker[0].join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(worker[0].isAlive());
+        assertEquals(1, r.matches.size());
+        assertFalse(r.completed);
+        assertNull(r.error);
+    }
+
+    @Test
+    public void testNonPositiveRequestIsAnError() throws InterruptedException {
+        Recorder r = new Recorder();
+        engine.publish(everyPublicType(), SearchOptions.DEFAULTS).subscribe(r);
+        r.subscription.request(0);
+
+        assertTrue(r.done.await(1, TimeUnit.MINUTES));
+        assertInstanceOf(IllegalArgumentException.class, r.error);
+        assertFalse(r.completed);
+    }
+
+    @Test
+    public void testLaterBadRequestsAddNoDemand() throws InterruptedException {
+        Recorder r = new Recorder();
+        engine.publish(everyPublicType(), SearchOptions.DEFAULTS).subscribe(r);
+        r.subscription.request(0);
+        r.subscription.request(-1);
+        r.subscription.request(Long.MIN_VALUE);
+
+        assertTrue(r.done.await(1, TimeUnit.MINUTES));
+        assertEquals("Non-positive request: 0", r.error.getMessage());
+        assertEquals(List.of(), r.matches);
+    }
+}
@@ -182,7 +182,7 @@ public class TestSamples {
             System.setOut(ps);
             System.setErr(ps);
 
-            Main.main(args);
+            Main.run(args);
 
             String actualOutput = bs.toString();
 
@@ -0,0 +1,76 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.candidate;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MemberCandidateTest {
+    @Test
+    public void testParamCountMatchesParams() {
+        Stream.of(String.class, Integer.class, Thread.State.class)
+                .flatMap(c -> Stream.of(
+                        Arrays.stream(c.getDeclaredFields())
+                                .map(MemberCandidate::membersFromField)
+                                .flatMap(List::stream),
+                        Arrays.stream(c.getDeclaredConstructors())
+                                .map(MemberCandidate::memberFromConstructor),
+                        Arrays.stream(c.getDeclaredMethods())
+                                .map(MemberCandidate::memberFromMethod)
+                ).flatMap(s -> s))
+                .forEach(mc -> assertEquals(
+                        mc.params().size(), mc.paramCount(),
+                        () -> "paramCount for " + mc.member()));
+    }
+
+    @Test
+    public void testToStringDoesNotDependOnParamsBeingRead()
+            throws NoSuchMethodException {
+        Method m = String.class.getDeclaredMethod("indexOf", String.class);
+
+        MemberCandidate unread = MemberCandidate.memberFromMethod(m);
+        MemberCandidate read = MemberCandidate.memberFromMethod(m);
+        read.params();
+
+        assertEquals(read.toString(), unread.toString());
+    }
+
+    @Test
+    public void testParamAnnotationsSkipped() throws NoSuchMethodException {
+        Method m = Annotated.class.getDeclaredMethod("m", String.class);
+
+        assertEquals(Set.of(Deprecated.class),
+                MemberCandidate.memberFromMethod(m, true)
+                        .params().get(0).annotations());
+        assertEquals(Set.of(),
+                MemberCandidate.memberFromMethod(m, false)
+                        .params().get(0).annotations());
+    }
+
+    @SuppressWarnings("unused")
+    static class Annotated {
+        static void m(@Deprecated String s) {}
+    }
+}
@@ -49,4 +49,14 @@ public class AnsiColourFormatterTest {
         assertEquals("\033[94mint\033[0;22;23;24m", f.formatType("int"));
         assertEquals("\033[94mcom.angellane.juggle.Juggler\033[0;22;23;24m", f.formatType("com.angellane.juggle.Juggler"));
     }
+
+    @Test
+    void testAppend() {
+        StringBuilder sb = new StringBuilder();
+        f.appendKeyword(sb, "public");
+        sb.append(' ');
+        f.appendClassName(sb, "Juggler");
+        f.appendPunctuation(sb, ", ");
+        assertEquals("\033[2mpublic\033[0;22;23;24m \033[32mJuggler\033[0;22;23;24m\033[2m, \033[0;22;23;24m", sb.toString());
+    }
 }
@@ -49,4 +49,14 @@ public class PlaintextFormatterTest {
         assertEquals("int", f.formatType("int"));
         assertEquals("com.angellane.juggle.Juggler", f.formatType("com.angellane.juggle.Juggler"));
     }
+
+    @Test
+    void testAppend() {
+        StringBuilder sb = new StringBuilder();
+        f.appendKeyword(sb, "public");
+        sb.append(' ');
+        f.appendClassName(sb, "Juggler");
+        f.appendPunctuation(sb, ", ");
+        assertEquals("public Juggler, ", sb.toString());
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import com.angellane.juggle.source.Module;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdkIndexTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        List<String> names = List.of(
+                "java.util.Map", "java.util.Map$Entry", "java.util.List", "a.B");
+        JdkIndex index = new JdkIndex("1.2.3", Map.of("m", names));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(bytes);
+        JdkIndex copy = JdkIndex.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals("1.2.3", copy.getRuntimeVersion());
+        assertEquals(Optional.of(names), copy.classNames("m"));
+        assertEquals(Optional.empty(), copy.classNames("n"));
+    }
+
+    @Test
+    public void testReadRejectsOtherData() {
+        assertThrows(IOException.class, () -> JdkIndex.read(
+                new ByteArrayInputStream("not an index".getBytes())));
+    }
+
+    @Test
+    public void testSystemModules() throws IOException {
+        JdkIndex index = JdkIndex.ofSystemModules();
+        assertEquals(Runtime.version().toString(), index.getRuntimeVersion());
+
+        List<String> base = index.classNames("java.base").orElseThrow();
+        assertTrue(base.contains("java.lang.Object"));
+        assertTrue(base.contains("java.util.Map$Entry"));
+        assertFalse(base.contains("jdk.internal.misc.Unsafe"));     // not exported
+        assertTrue(base.stream().noneMatch(s -> s.matches(".*\\$[0-9][^$]*")));
+    }
+
+    @Test
+    public void testSystemModulesMatchModuleListing() throws IOException {
+        // The index should hold exactly the classes that would be searched
+        // without it: those in exported packages, less anonymous and local
+        // classes (but not classes nested in them).
+        ModuleReference ref = ModuleFinder.ofSystem().find("java.base").orElseThrow();
+        Set<String> exported = Module.exportedPackages(ref.descriptor());
+
+        List<String> listed;
+        try (ModuleReader reader = ref.open()) {
+            listed = reader.list()
+                    .filter(s -> s.endsWith(".class") && !s.endsWith("module-info.class"))
+                    .map(s -> s.substring(0, s.length() - ".class".length())
+                            .replace('/', '.'))
+                    .filter(s -> exported.contains(s.substring(0, s.lastIndexOf('.'))))
+                    .filter(s -> !Character.isDigit(
+                            s.charAt(s.lastIndexOf('$') + 1)))
+                    .toList();
+        }
+
+        assertEquals(listed,
+                JdkIndex.ofSystemModules().classNames("java.base").orElseThrow());
+    }
+
+    @Test
+    public void testMainWritesIndex() throws IOException {
+        Path file = dir.resolve("sub/jdk.idx");
+        JdkIndex.main(new String[] { file.toString() });
+
+        try (InputStream is = Files.newInputStream(file)) {
+            assertTrue(JdkIndex.read(is).classNames("java.base").isPresent());
+        }
+    }
+
+    @Test
+    public void testForRuntime() {
+        // The build packages an index made by the same JDK that runs the tests
+        JdkIndex.forRuntime().ifPresent(index -> assertEquals(
+                Runtime.version().toString(), index.getRuntimeVersion()));
+    }
+}
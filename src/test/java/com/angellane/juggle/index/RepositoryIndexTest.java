@@ -0,0 +1,58 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryIndexTest {
+    private static final Path JAR = Path.of("lib.jar");
+
+    private static RepositoryIndex index() {
+        RepositoryIndex index = new RepositoryIndex();
+        index.put(JAR, 100, 200, List.of("p.A", "p.B", "p.q.C"));
+        return index;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        index().write(os);
+
+        RepositoryIndex read = RepositoryIndex.read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(List.of("p.A", "p.B", "p.q.C"),
+                read.classNames(JAR, 100, 200).orElseThrow());
+        assertTrue(read.classNames(JAR, 100, 201).isEmpty());
+    }
+
+    @Test
+    public void testOtherRuntimesListingsAreIgnored() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        index().write(os, "1.0");
+
+        RepositoryIndex read = RepositoryIndex.read(new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(0, read.size());
+    }
+}
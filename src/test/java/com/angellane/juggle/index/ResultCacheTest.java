@@ -0,0 +1,114 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import com.angellane.juggle.source.FileSource;
+import com.angellane.juggle.source.Module;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        ResultCache cache = new ResultCache(dir.resolve("results"), 10);
+        String key = ResultCache.key(List.of("query", "options"));
+
+        assertTrue(cache.get(key).isEmpty());
+
+        cache.put(key, bytes("result"));
+        assertArrayEquals(bytes("result"), cache.get(key).orElseThrow());
+
+        cache.put(key, bytes("another result"));
+        assertArrayEquals(bytes("another result"), cache.get(key).orElseThrow());
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals(ResultCache.key(List.of("a", "b")),
+                ResultCache.key(List.of("a", "b")));
+        assertNotEquals(ResultCache.key(List.of("a", "b")),
+                ResultCache.key(List.of("ab")));
+        assertNotEquals(ResultCache.key(List.of("a", "b")),
+                ResultCache.key(List.of("b", "a")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAreEvicted() throws IOException {
+        ResultCache cache = new ResultCache(dir, 2);
+
+        cache.put("a", bytes("A"));
+        cache.put("b", bytes("B"));
+
+        // File times may be coarse, so age the entries explicitly
+        Files.setLastModifiedTime(dir.resolve("a.out"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(dir.resolve("b.out"), FileTime.fromMillis(2000));
+
+        assertTrue(cache.get("a").isPresent());     // a is now the most recent
+
+        cache.put("c", bytes("C"));
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+    }
+
+    private static FileSource source(Path path) {
+        return new FileSource(path.toString());
+    }
+
+    @Test
+    public void testFingerprint() throws IOException {
+        Path jar = Files.write(dir.resolve("lib.jar"), bytes("one"));
+        Path other = Files.write(dir.resolve("other.jar"), bytes("two"));
+
+        String before = ResultCache.fingerprint(List.of(source(jar), source(other)));
+        assertEquals(before, ResultCache.fingerprint(List.of(source(jar), source(other))));
+
+        // The first copy of a class is the one that's loaded
+        assertNotEquals(before, ResultCache.fingerprint(List.of(source(other), source(jar))));
+
+        Files.write(jar, bytes("three"));
+        assertNotEquals(before, ResultCache.fingerprint(List.of(source(jar), source(other))));
+    }
+
+    @Test
+    public void testFingerprintIncludesSystemModules() {
+        Module base = new Module(List.of(), "java.base");
+        base.configure();
+        Module sql = new Module(List.of(), "java.sql");
+        sql.configure();
+
+        assertNotEquals(ResultCache.fingerprint(List.of(base)),
+                ResultCache.fingerprint(List.of(base, sql)));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TypeHierarchyTest {
+    final TypeHierarchy h = new TypeHierarchy(List.of(
+            ArrayList.class, LinkedList.class, AbstractList.class,
+            Collection.class, String.class, Object.class
+    ));
+
+    @Test
+    public void testSubtypesIncludeThoseViaUnsearchedTypes() {
+        // LinkedList extends AbstractSequentialList, which isn't searched
+        assertEquals(Set.of(ArrayList.class, LinkedList.class),
+                h.subtypesOf(AbstractList.class));
+    }
+
+    @Test
+    public void testSubtypesOfInterface() {
+        assertEquals(Set.of(ArrayList.class, LinkedList.class,
+                        AbstractList.class),
+                h.subtypesOf(Collection.class));
+        assertEquals(Set.of(ArrayList.class, LinkedList.class, String.class),
+                h.subtypesOf(Serializable.class));
+    }
+
+    @Test
+    public void testSubtypesExcludeSelf() {
+        assertTrue(h.subtypesOf(ArrayList.class).isEmpty());
+    }
+
+    @Test
+    public void testDirectSubtypes() {
+        assertEquals(List.of(ArrayList.class),
+                h.directSubtypesOf(AbstractList.class).stream()
+                        .filter(h.types()::contains)
+                        .toList());
+    }
+
+    @Test
+    public void testSupertypesIncludeSelf() {
+        assertEquals(Set.of(ArrayList.class, AbstractList.class,
+                        Collection.class, Object.class),
+                h.supertypesOf(ArrayList.class));
+    }
+}
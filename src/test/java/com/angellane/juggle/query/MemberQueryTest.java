@@ -21,14 +21,15 @@ import com.angellane.juggle.candidate.MemberCandidate;
 import com.angellane.juggle.candidate.Param;
 import com.angellane.juggle.match.Accessibility;
 import com.angellane.juggle.match.TypeMatcher;
+import com.angellane.juggle.util.NegatablePattern;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.OptionalInt;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class MemberQueryTest {
     TypeMatcher conv    = new TypeMatcher(true);
@@ -89,4 +90,34 @@ public class MemberQueryTest {
             fail("Couldn't find method");
         }
     }
+
+    @Test
+    public void testRefines() {
+        MemberQuery broad = new MemberQuery();
+        broad.setAccessibility(Accessibility.PUBLIC);
+        broad.params = List.of(ParamSpec.param(String.class), ParamSpec.ellipsis());
+
+        MemberQuery narrow = new MemberQuery();
+        narrow.setAccessibility(Accessibility.PUBLIC);
+        narrow.params = List.of(ParamSpec.param(String.class), ParamSpec.ellipsis());
+        assertTrue(narrow.refines(broad));          // Same query
+
+        narrow.setModifiersAndMask(Modifier.STATIC, Modifier.STATIC);
+        narrow.returnType = BoundedType.exactType(Integer.TYPE);
+        narrow.setNamePattern(NegatablePattern.compile("indexOf"));
+        assertTrue(narrow.refines(broad));
+        assertFalse(broad.refines(narrow));
+
+        broad.setNamePattern(NegatablePattern.compile("index"));
+        assertTrue(narrow.refines(broad));
+
+        narrow.setAccessibility(Accessibility.PRIVATE);
+        assertFalse(narrow.refines(broad));         // Wider access
+
+        narrow.setAccessibility(Accessibility.PUBLIC);
+        narrow.params = List.of(ParamSpec.param(String.class));
+        assertFalse(narrow.refines(broad));         // Params differ
+
+        assertFalse(new TypeQuery().refines(new MemberQuery()));
+    }
 }
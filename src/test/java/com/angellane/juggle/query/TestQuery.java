@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.OptionalInt;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class TestQuery {
     @Test
@@ -71,4 +72,28 @@ public class TestQuery {
                 )));
     }
 
+    @Test
+    public void testTotalLazilyValid() {
+        assertEquals(OptionalInt.of(6),
+                Query.totalScoreLazily(
+                        () -> OptionalInt.of(1),
+                        () -> OptionalInt.of(2),
+                        () -> OptionalInt.of(3)
+                ));
+    }
+
+    @Test
+    public void testTotalLazilyStopsAtFirstMismatch() {
+        assertEquals(OptionalInt.empty(),
+                Query.totalScoreLazily(
+                        () -> OptionalInt.of(1),
+                        OptionalInt::empty,
+                        () -> fail("Evaluated score after a mismatch")
+                ));
+    }
+
+    @Test
+    public void testTotalLazilyEmpty() {
+        assertEquals(OptionalInt.of(0), Query.totalScoreLazily());
+    }
 }
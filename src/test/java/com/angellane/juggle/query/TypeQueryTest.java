@@ -24,6 +24,7 @@ import com.angellane.juggle.util.NegatablePattern;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -132,4 +133,51 @@ public class TypeQueryTest {
 
         assertEquals(EXACT_MATCH, q.scoreCandidate(tm, ct));
     }
+
+    @Test
+    public void testRefines() {
+        TypeQuery broad = new TypeQuery();
+        broad.setAccessibility(Accessibility.PUBLIC);
+        broad.setSuperInterfaces(Set.of(BoundedType.subtypeOf(java.util.Collection.class)));
+
+        TypeQuery narrow = new TypeQuery(TypeFlavour.CLASS);
+        narrow.setAccessibility(Accessibility.PUBLIC);
+        narrow.setSuperInterfaces(Set.of(
+                BoundedType.subtypeOf(java.util.Collection.class),
+                BoundedType.subtypeOf(java.io.Serializable.class)));
+        narrow.setAnnotationTypes(Set.of(Deprecated.class));
+        assertTrue(narrow.refines(broad));
+        assertFalse(broad.refines(narrow));
+
+        narrow.setSuperInterfaces(Set.of(
+                BoundedType.subtypeOf(java.io.Serializable.class)));
+        assertFalse(narrow.refines(broad));
+    }
+
+    @Test
+    public void testCanonicalForm() {
+        TypeQuery q1 = new TypeQuery(TypeFlavour.CLASS);
+        q1.setAccessibility(Accessibility.PUBLIC);
+        q1.setNamePattern(NegatablePattern.compile("List"));
+        q1.setSuperInterfaces(new LinkedHashSet<>(List.of(
+                BoundedType.subtypeOf(java.util.Collection.class),
+                BoundedType.subtypeOf(java.io.Serializable.class))));
+
+        TypeQuery q2 = new TypeQuery(TypeFlavour.CLASS);
+        q2.setAccessibility(Accessibility.PUBLIC);
+        q2.setNamePattern(NegatablePattern.compile("List"));
+        q2.setSuperInterfaces(new LinkedHashSet<>(List.of(
+                BoundedType.subtypeOf(java.io.Serializable.class),
+                BoundedType.subtypeOf(java.util.Collection.class))));
+
+        assertEquals(q1.canonicalForm(), q2.canonicalForm());
+
+        q2.setNamePattern(NegatablePattern.compile("Set"));
+        assertNotEquals(q1.canonicalForm(), q2.canonicalForm());
+
+        q2.setNamePattern(NegatablePattern.compile("List"));
+        q2.setSuperInterfaces(Set.of(
+                BoundedType.subtypeOf(java.io.Serializable.class)));
+        assertNotEquals(q1.canonicalForm(), q2.canonicalForm());
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.shard;
+
+import com.angellane.juggle.JuggleError;
+import com.angellane.juggle.SortCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardCoordinatorTest {
+    @Test
+    public void testFailingWorkerFailsTheSearch() {
+        // Binary output can't be merged, so every worker refuses to run
+        ShardCoordinator coordinator = new ShardCoordinator(
+                List.of("-f", "binary", "String"), 2,
+                ShardRecord.comparator(List.of(SortCriteria.NAME)));
+
+        List<String> lines = new ArrayList<>();
+        JuggleError ex = assertThrows(JuggleError.class,
+                () -> coordinator.run(lines::add));
+        assertTrue(ex.getMessage().contains("exit status"), ex.getMessage());
+        assertEquals(List.of(), lines);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.shard;
+
+import com.angellane.juggle.SortCriteria;
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Accessibility;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.query.TypeQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRecordTest {
+    private static ShardRecord record(int score, int depth,
+                                      Accessibility access, String name) {
+        return new ShardRecord(score, depth, access, Integer.MAX_VALUE,
+                "p", name, name, name);
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        ShardRecord r = new ShardRecord(3, 2, Accessibility.PROTECTED, 1,
+                "java.util", "tab\there", "new\nline\r", "back\\slash\\t");
+
+        String encoded = r.encode();
+        assertFalse(encoded.contains("\n"));
+        assertEquals(r, ShardRecord.decode(encoded));
+    }
+
+    @Test
+    public void testDecodeRejectsMalformedLines() {
+        assertThrows(Error.class, () -> ShardRecord.decode("1\t2\tPUBLIC"));
+        assertThrows(Error.class, () -> ShardRecord.decode(
+                "x\t0\tPUBLIC\t0\tp\tn\tt\to"));
+        assertThrows(Error.class, () -> ShardRecord.decode(
+                "0\t0\tOPEN\t0\tp\tn\tt\to"));
+    }
+
+    @Test
+    public void testOf() {
+        MemberCandidate mc = MemberCandidate.memberFromMethod(
+                String.class.getMethods()[0]);
+        ShardRecord mr = ShardRecord.of(new Match<>(mc, new MemberQuery(), 4),
+                List.of("java.util", "java.lang"), c -> "rendered");
+
+        assertEquals(4, mr.score());
+        assertEquals(0, mr.depth());
+        assertEquals(1, mr.packageRank());
+        assertEquals("rendered", mr.output());
+
+        TypeCandidate tc = TypeCandidate.candidateForType(ArrayList.class);
+        ShardRecord tr = ShardRecord.of(
+                new Match<TypeCandidate, Query<TypeCandidate>>(tc, new TypeQuery(), 0),
+                List.of("java.lang"), c -> "");
+
+        assertEquals(Integer.MAX_VALUE, tr.packageRank());
+        assertTrue(tr.depth() > ShardRecord.countSupertypes(java.util.AbstractList.class));
+    }
+
+    @Test
+    public void testComparator() {
+        ShardRecord a = record(0, 1, Accessibility.PUBLIC,  "b");
+        ShardRecord b = record(0, 2, Accessibility.PUBLIC,  "a");
+        ShardRecord c = record(0, 1, Accessibility.PRIVATE, "a");
+        ShardRecord d = record(1, 0, Accessibility.PUBLIC,  "a");
+
+        List<ShardRecord> records = new ArrayList<>(List.of(d, c, b, a));
+        records.sort(ShardRecord.comparator(List.of(
+                SortCriteria.SCORE, SortCriteria.HIERARCHY,
+                SortCriteria.ACCESS, SortCriteria.NAME)));
+        assertEquals(List.of(a, c, b, d), records);
+
+        records.sort(ShardRecord.comparator(List.of(
+                SortCriteria.NAME, SortCriteria.SCORE)));
+        assertEquals(List.of(c, b, d, a), records);    // stable: c and b tie
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.MemberQuery;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryOutputTest {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryOutput binary = new BinaryOutput(bytes);
+
+    private BinaryDecoder decoder() {
+        return new BinaryDecoder(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, NoSuchMethodException {
+        binary.acceptMatch(new Match<>(MemberCandidate.memberFromMethod(
+                Collections.class.getMethod("max", Collection.class)),
+                new MemberQuery(), 3));
+        binary.accept(TypeCandidate.candidateForType(Map.Entry.class));
+        binary.flush();
+
+        try (BinaryDecoder decoder = decoder()) {
+            List<BinaryResult> results = decoder.nextResponse().orElseThrow();
+            assertEquals(2, results.size());
+
+            assertEquals(new BinaryResult(BinaryResult.Kind.METHOD,
+                            Modifier.PUBLIC | Modifier.STATIC, 3,
+                            "java.util.Collections", "max", "T",
+                            List.of("T extends java.lang.Comparable<? super T>"),
+                            List.of("java.util.Collection<? extends T>"),
+                            List.of()),
+                    results.get(0));
+
+            BinaryResult entry = results.get(1);
+            assertEquals(BinaryResult.Kind.INTERFACE, entry.kind());
+            assertEquals("java.util.Map.Entry", entry.name());
+            assertEquals("java.util.Map<K,V>", entry.owner());
+            assertNull(entry.type());
+            assertEquals(-1, entry.score());
+            assertEquals(List.of("K", "V"), entry.typeParameters());
+
+            assertTrue(decoder.nextResponse().isEmpty());
+        }
+    }
+
+    @Test
+    public void testResponses() throws IOException {
+        binary.flush();                 // A search with no results
+        binary.accept(TypeCandidate.candidateForType(String.class));
+        binary.flush();
+
+        try (BinaryDecoder decoder = decoder()) {
+            assertEquals(List.of(), decoder.nextResponse().orElseThrow());
+            assertEquals(List.of("java.lang.String"), decoder.nextResponse().orElseThrow()
+                    .stream().map(BinaryResult::name).toList());
+            assertTrue(decoder.nextResponse().isEmpty());
+        }
+    }
+
+    @Test
+    public void testLargeResponseIsSplitIntoFrames() throws IOException {
+        Method[] methods = Object.class.getMethods();
+        int n = BinaryOutput.MAX_FRAME_RESULTS * 2 + 1;
+        for (int i = 0; i < n; ++i)
+            binary.acceptMatch(new Match<>(MemberCandidate.memberFromMethod(
+                    methods[i % methods.length]), new MemberQuery(), i));
+        binary.flush();
+
+        try (BinaryDecoder decoder = decoder()) {
+            List<BinaryResult> results = decoder.nextResponse().orElseThrow();
+            assertEquals(n, results.size());
+            for (int i = 0; i < n; ++i)
+                assertEquals(i, results.get(i).score());
+        }
+    }
+
+    @Test
+    public void testTypeNamesWrittenOnce() throws IOException, NoSuchMethodException {
+        Method m = String.class.getMethod("valueOf", Object.class);
+        for (int i = 0; i < 100; ++i)
+            binary.acceptMatch(new Match<>(MemberCandidate.memberFromMethod(m),
+                    new MemberQuery(), 0));
+        binary.flush();
+
+        // Header, frame length, and about ten bytes of numbers per result
+        assertTrue(bytes.size() < 100 * 12 + "java.lang.String".length() * 3, bytes.size() + "");
+    }
+
+    @Test
+    public void testNotBinaryOutput() {
+        bytes.writeBytes("{\"kind\":\"method\"}".getBytes());
+        assertThrows(IOException.class, () -> decoder().nextResponse());
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        assertTrue(decoder().nextResponse().isEmpty());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.candidate.MemberCandidate;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.query.MemberQuery;
+import com.angellane.juggle.query.Query;
+import com.angellane.juggle.query.TypeQuery;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonOutputTest {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonOutput json = new JsonOutput(new PrintStream(bytes, true));
+
+    @Test
+    public void testMethod() throws NoSuchMethodException {
+        assertEquals("{\"kind\":\"method\",\"declaringClass\":\"java.util.Collections\","
+                        + "\"name\":\"max\",\"modifiers\":[\"public\",\"static\"],"
+                        + "\"typeParameters\":[\"T extends java.lang.Comparable<? super T>\"],"
+                        + "\"returnType\":\"T\",\"parameters\":[\"java.util.Collection<? extends T>\"],"
+                        + "\"throws\":[],\"score\":3}",
+                json.encode(new Match<>(MemberCandidate.memberFromMethod(
+                        Collections.class.getMethod("max", Collection.class)),
+                        new MemberQuery(), 3)));
+    }
+
+    @Test
+    public void testVarArgsMethodIsntTransient() throws NoSuchMethodException {
+        String s = json.encode(new Match<>(MemberCandidate.memberFromMethod(
+                String.class.getMethod("format", String.class, Object[].class)),
+                new MemberQuery(), 0));
+
+        assertTrue(s.contains("\"modifiers\":[\"public\",\"static\"]"), s);
+        assertTrue(s.contains("\"parameters\":[\"java.lang.String\",\"java.lang.Object...\"]"), s);
+    }
+
+    @Test
+    public void testConstructor() throws NoSuchMethodException {
+        assertEquals("{\"kind\":\"constructor\",\"declaringClass\":\"java.io.FileReader\","
+                        + "\"name\":\"<init>\",\"modifiers\":[\"public\"],\"typeParameters\":[],"
+                        + "\"parameters\":[\"java.lang.String\"],"
+                        + "\"throws\":[\"java.io.FileNotFoundException\"],\"score\":0}",
+                json.encode(new Match<>(MemberCandidate.memberFromConstructor(
+                        FileReader.class.getConstructor(String.class)),
+                        new MemberQuery(), 0)));
+    }
+
+    @Test
+    public void testType() {
+        assertEquals("{\"kind\":\"class\",\"name\":\"java.util.ArrayList\","
+                        + "\"modifiers\":[\"public\"],\"typeParameters\":[\"E\"],"
+                        + "\"superclass\":\"java.util.AbstractList<E>\","
+                        + "\"interfaces\":[\"java.util.List<E>\",\"java.util.RandomAccess\","
+                        + "\"java.lang.Cloneable\",\"java.io.Serializable\"],\"score\":1}",
+                json.encode(new Match<TypeCandidate, Query<TypeCandidate>>(
+                        TypeCandidate.candidateForType(ArrayList.class),
+                        new TypeQuery(), 1)));
+    }
+
+    @Test
+    public void testOneLinePerResult() {
+        json.accept(TypeCandidate.candidateForType(Thread.State.class));
+        json.accept(TypeCandidate.candidateForType(Override.class));
+        assertEquals("", bytes.toString());     // Not until flushed
+
+        json.flush();
+        String[] lines = bytes.toString().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"kind\":\"enum\",\"name\":\"java.lang.Thread.State\","
+                + "\"declaringClass\":\"java.lang.Thread\""), lines[0]);
+        assertTrue(lines[1].startsWith("{\"kind\":\"annotation\""), lines[1]);
+        assertFalse(lines[1].contains("score"));
+    }
+}
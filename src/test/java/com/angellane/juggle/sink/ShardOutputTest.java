@@ -0,0 +1,52 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.SortCriteria;
+import com.angellane.juggle.candidate.TypeCandidate;
+import com.angellane.juggle.match.Match;
+import com.angellane.juggle.shard.ShardRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardOutputTest {
+    @Test
+    public void testBareCandidatesAreExactMatches() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ShardOutput out = new ShardOutput(List.of("java.lang"),
+                m -> m.candidate().simpleName(),
+                ShardRecord.comparator(List.of(SortCriteria.SCORE)),
+                new PrintStream(bytes))) {
+            out.acceptMatch(new Match<>(
+                    TypeCandidate.candidateForType(Integer.class), null, 1));
+            out.accept(TypeCandidate.candidateForType(String.class));
+        }
+
+        List<ShardRecord> records = bytes.toString().lines()
+                .map(ShardRecord::decode)
+                .toList();
+        assertEquals(List.of("String", "Integer"),
+                records.stream().map(ShardRecord::output).toList());
+        assertEquals(0, records.get(0).score());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.sink;
+
+import com.angellane.juggle.formatter.PlaintextFormatter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextOutputTest {
+    TextOutput text = new TextOutput(List.of("java.lang"),
+            new PrintStream(new ByteArrayOutputStream()), new PlaintextFormatter());
+
+    @Test
+    public void testRenderingsAreReused() {
+        String first = text.decodeType(String.class);
+        assertEquals("String", first);
+        assertSame(first, text.decodeType(String.class));
+        assertSame(first, text.decodeClass(String.class));
+    }
+
+    @Test
+    public void testVarArgsRenderedSeparately() {
+        assertEquals("String[]", text.decodeType(String[].class, false));
+        assertEquals("String...", text.decodeType(String[].class, true));
+        assertEquals("String[]", text.decodeType(String[].class, false));
+    }
+
+    @Test
+    public void testGenericTypes() throws NoSuchMethodException {
+        Method m = List.class.getMethod("subList", int.class, int.class);
+        Type listOfE = m.getGenericReturnType();
+
+        assertEquals("java.util.List<E>", text.decodeType(listOfE));
+        assertEquals("java.util.List<E>", text.decodeType(List.class));
+        assertSame(text.decodeType(listOfE), text.decodeType(listOfE));
+    }
+
+    @Test
+    public void testImportsAreRespected() {
+        TextOutput withUtil = new TextOutput(List.of("java.util", "java.lang"),
+                new PrintStream(new ByteArrayOutputStream()), new PlaintextFormatter());
+
+        assertEquals("java.util.List<E>", text.decodeType(List.class));
+        assertEquals("List<E>", withUtil.decodeType(List.class));
+    }
+}
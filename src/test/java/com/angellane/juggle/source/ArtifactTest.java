@@ -0,0 +1,71 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArtifactTest {
+    @Test
+    public void testMavenPath() {
+        Path root = Path.of("/m2");
+        assertEquals(Optional.of(new Artifact("org.apache.commons", "commons-lang3", "3.12.0",
+                        root.resolve("org/apache/commons/commons-lang3/3.12.0/commons-lang3-3.12.0.jar"))),
+                Artifact.fromMavenPath(root,
+                        root.resolve("org/apache/commons/commons-lang3/3.12.0/commons-lang3-3.12.0.jar")));
+
+        assertTrue(Artifact.fromMavenPath(root,
+                root.resolve("org/apache/commons/commons-lang3/3.12.0/commons-lang3-3.12.0-sources.jar"))
+                .isEmpty());
+        assertTrue(Artifact.fromMavenPath(root, root.resolve("a/b/c.jar")).isEmpty());
+    }
+
+    @Test
+    public void testGradlePath() {
+        Path root = Path.of("/gradle/files-2.1");
+        Path jar = root.resolve("com.google.guava/guava/32.1.2-jre/0123abcd/guava-32.1.2-jre.jar");
+
+        Artifact a = Artifact.fromGradlePath(root, jar).orElseThrow();
+        assertEquals("com.google.guava:guava", a.key());
+        assertEquals("com.google.guava:guava:32.1.2-jre", a.toString());
+
+        assertTrue(Artifact.fromGradlePath(root,
+                root.resolve("com.google.guava/guava/32.1.2-jre/0123abcd/guava-32.1.2-jre-javadoc.jar"))
+                .isEmpty());
+    }
+
+    @Test
+    public void testVersionOrder() {
+        List<String> ordered = List.of("1.0-alpha", "1.0-beta2", "1.0-beta10",
+                "1.0-RC1", "1.0-SNAPSHOT", "1.0", "1.0-sp1", "1.0.1", "1.2", "1.10");
+
+        for (int i = 0; i < ordered.size(); ++i)
+            for (int j = 0; j < ordered.size(); ++j)
+                assertEquals(Integer.signum(Integer.compare(i, j)),
+                        Integer.signum(Artifact.VERSION_ORDER.compare(ordered.get(i), ordered.get(j))),
+                        ordered.get(i) + " vs " + ordered.get(j));
+
+        assertEquals(0, Artifact.VERSION_ORDER.compare("1.0", "1.0.0"));
+        assertEquals(0, Artifact.VERSION_ORDER.compare("1.0", "1.0-final"));
+    }
+}
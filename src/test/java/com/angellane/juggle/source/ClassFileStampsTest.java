@@ -0,0 +1,111 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassFileStampsTest {
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    @Test
+    public void testNoChanges() throws IOException {
+        write("p/A.class", "a");
+
+        ClassFileStamps stamps = new ClassFileStamps(dir);
+        assertEquals(Set.of(), stamps.rescan());
+    }
+
+    @Test
+    public void testTouchedButUnchanged() throws IOException {
+        Path a = write("p/A.class", "a");
+
+        ClassFileStamps stamps = new ClassFileStamps(dir);
+        Files.setLastModifiedTime(a, FileTime.fromMillis(0));
+        assertEquals(Set.of(), stamps.rescan());
+    }
+
+    @Test
+    public void testAddedChangedAndRemoved() throws IOException {
+        Path a = write("p/A.class", "a");
+        Path b = write("p/B.class", "b");
+        write("p/notes.txt", "ignored");
+
+        ClassFileStamps stamps = new ClassFileStamps(dir);
+
+        Files.writeString(a, "a, but different");
+        Files.delete(b);
+        write("q/C.class", "c");
+        write("p/notes.txt", "still ignored");
+
+        assertEquals(Set.of(Path.of("p/A.class"), Path.of("p/B.class"),
+                        Path.of("q/C.class")),
+                stamps.rescan());
+        assertEquals(Set.of(), stamps.rescan());
+    }
+
+    @Test
+    public void testChangedClassNames() throws IOException {
+        Path a = write("p/A$Inner.class", "a");
+
+        FileSource source = new FileSource(dir.toString());
+        source.trackChanges();
+
+        Files.writeString(a, "a, but different");
+        assertEquals(Set.of("p.A$Inner"), source.changedClassNames());
+    }
+
+    @Test
+    public void testRootDeletedAndRecreated() throws IOException {
+        Path root = dir.resolve("classes");
+        Path a = root.resolve("p/A.class");
+        Files.createDirectories(a.getParent());
+        Files.writeString(a, "a");
+
+        FileSource source = new FileSource(root.toString());
+        source.trackChanges();
+
+        Files.delete(a);
+        Files.delete(a.getParent());
+        Files.delete(root);
+
+        assertTrue(source.isDirectory());
+        assertEquals(Set.of("p.A"), source.changedClassNames());
+        assertEquals(0, source.classNames().count());
+
+        Files.createDirectories(a.getParent());
+        Files.writeString(a, "a");
+        assertEquals(Set.of("p.A"), source.changedClassNames());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.Juggler;
+import com.angellane.juggle.testsupport.JdkTools;
+import com.angellane.juggle.testsupport.TestJar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassOriginsTest {
+    @TempDir
+    Path dir;
+
+    Path first, copy, other;
+
+    private Path compile(String name, String source) throws IOException {
+        return JdkTools.javac(dir.resolve(name), Map.of("p/Widget.java", source))
+                .resolve("p/Widget.class");
+    }
+
+    private Path jar(String name, Path classFile) throws IOException {
+        return new TestJar()
+                .entry("p/Widget.class", classFile)
+                .write(dir.resolve(name + ".jar"));
+    }
+
+    @BeforeEach
+    public void makeJars() throws IOException {
+        Path v1 = compile("v1", "package p; public class Widget {}");
+        Path v2 = compile("v2", "package p; public class Widget { public int size() { return 1; } }");
+
+        first = jar("first", v1);
+        copy  = jar("copy", v1);
+        other = jar("other", v2);
+    }
+
+    @Test
+    public void testCopies() throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {
+                first.toUri().toURL(), other.toUri().toURL(), copy.toUri().toURL() },
+                null)) {
+            Class<?> widget = loader.loadClass("p.Widget");
+
+            assertEquals(List.of(
+                            new ClassOrigins.Copy(first.toString(), true),
+                            new ClassOrigins.Copy(other.toString(), false),
+                            new ClassOrigins.Copy(copy.toString(), true)),
+                    new ClassOrigins(loader).copiesOf(widget));
+        }
+    }
+
+    @Test
+    public void testLocations() throws Exception {
+        assertEquals(first.toString(), ClassOrigins.location(
+                new URL("jar:" + first.toUri() + "!/p/Widget.class"), "p/Widget.class"));
+        assertEquals(dir.toString(), ClassOrigins.location(
+                dir.resolve("p/Widget.class").toUri().toURL(), "p/Widget.class"));
+        assertEquals("java.base", ClassOrigins.location(
+                String.class.getResource("String.class"), "java/lang/String.class"));
+    }
+
+    @Test
+    public void testDuplicateNamesSearchedOnce() {
+        Juggler juggler = new Juggler();
+        juggler.addSource(new FileSource(first.toString()));
+        juggler.addSource(new FileSource(other.toString()));
+        juggler.configureAllSources();
+
+        assertEquals(1, juggler.getClassesToSearch().stream()
+                .filter(c -> c.getName().equals("p.Widget"))
+                .count());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class DirectoryWatcherTest {
+    @TempDir
+    Path dir;
+
+    // Fails (rather than hanging) if no change is reported in time
+    private static void awaitChange(ExecutorService executor,
+                                    DirectoryWatcher watcher) throws Exception {
+        executor.submit(() -> { watcher.awaitChange(); return null; })
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRecreatedRootIsWatchedAgain() throws Exception {
+        Path root = dir.resolve("classes");
+        Files.createDirectories(root);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (DirectoryWatcher watcher =
+                     new DirectoryWatcher(List.of(new FileSource(root.toString())))) {
+            Files.delete(root);
+            awaitChange(executor, watcher);     // Deleted
+
+            Files.createDirectories(root);
+            awaitChange(executor, watcher);     // Back again
+            watcher.registerRoots();
+
+            Files.writeString(root.resolve("A.class"), "a");
+            awaitChange(executor, watcher);     // Watched again
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
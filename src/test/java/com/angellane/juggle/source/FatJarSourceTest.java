@@ -0,0 +1,93 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.Juggler;
+import com.angellane.juggle.testsupport.JdkTools;
+import com.angellane.juggle.testsupport.TestJar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FatJarSourceTest {
+    @TempDir
+    Path dir;
+
+    Path fatJar;
+    Path thinJar;
+
+    @BeforeEach
+    public void makeJars() throws IOException {
+        Path classes = JdkTools.javac(dir, Map.of(
+                "app/App.java",
+                "package app; public class App { public static lib.Lib lib() { return new lib.Lib(); } }",
+                "lib/Lib.java",
+                "package lib; public class Lib { public int answer() { return 42; } }"));
+
+        byte[] nested = new TestJar()
+                .entry("lib/Lib.class", classes.resolve("lib/Lib.class"))
+                .toByteArray();
+
+        fatJar = new TestJar()
+                .entry("org/springframework/boot/loader/Launcher.class", new byte[] { 0 })
+                .entry("BOOT-INF/classes/app/App.class", classes.resolve("app/App.class"))
+                .storedEntry("BOOT-INF/lib/lib.jar", nested)
+                .write(dir.resolve("fat.jar"));
+
+        thinJar = new TestJar()
+                .entry("app/App.class", classes.resolve("app/App.class"))
+                .write(dir.resolve("thin.jar"));
+    }
+
+    @Test
+    public void testIsFatJar() {
+        assertTrue(FatJarSource.isFatJar(fatJar));
+        assertFalse(FatJarSource.isFatJar(thinJar));
+        assertFalse(FatJarSource.isFatJar(dir));
+    }
+
+    @Test
+    public void testClassNames() {
+        FatJarSource source = new FatJarSource(fatJar.toString());
+        assertEquals(List.of(), source.configure());
+        assertEquals(Set.of("app.App", "lib.Lib"),
+                source.classNames().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testLoadsNestedClasses() throws ReflectiveOperationException {
+        Juggler juggler = new Juggler();
+        FatJarSource source = new FatJarSource(fatJar.toString());
+        juggler.addSource(source);
+        juggler.configureAllSources();
+
+        Class<?> app = source.loadClass("app.App").orElseThrow();
+        Object lib = app.getMethod("lib").invoke(null);
+        assertEquals("lib.Lib", lib.getClass().getName());
+        assertEquals(42, lib.getClass().getMethod("answer").invoke(lib));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.testsupport.TestJar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSourceTest {
+    @TempDir
+    Path dir;
+
+    private Path jar(boolean multiRelease, String... entries) throws IOException {
+        TestJar jar = multiRelease ? new TestJar().multiRelease() : new TestJar();
+        for (String entry : entries)
+            jar.entry(entry);
+        return jar.write(dir.resolve(multiRelease ? "mr.jar" : "plain.jar"));
+    }
+
+    private static Set<String> classNames(Path jar) {
+        return new FileSource(jar.toString()).classNames().collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testMultiReleaseJar() throws IOException {
+        Path jar = jar(true,
+                "p/A.class", "p/B.class",
+                "META-INF/versions/9/p/A.class",
+                "META-INF/versions/9/p/Nine.class",
+                "META-INF/versions/9/module-info.class");
+
+        // Each class once, by its plain name
+        assertEquals(Set.of("p.A", "p.B", "p.Nine"), classNames(jar));
+    }
+
+    @Test
+    public void testVersionedEntriesIgnoredWithoutManifestAttribute() throws IOException {
+        Path jar = jar(false, "p/A.class", "META-INF/versions/9/p/A.class");
+        assertEquals(Set.of("p.A"), classNames(jar));
+    }
+}
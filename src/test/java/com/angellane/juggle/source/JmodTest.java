@@ -0,0 +1,113 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.Juggler;
+import com.angellane.juggle.testsupport.JdkTools;
+import com.angellane.juggle.util.ResolvingURLClassLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.module.ModuleReference;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JmodTest {
+    @TempDir
+    Path dir;
+
+    Path jmods;
+
+    @BeforeEach
+    public void makeJmod() throws IOException {
+        jmods = dir.resolve("jmods");
+        Files.createDirectories(jmods);
+
+        Path classes = JdkTools.javac(dir, Map.of(
+                "module-info.java",
+                "module test.jmod { exports p; }",
+                "p/Exported.java",
+                "package p; public class Exported { public static int answer() { return 42; } }",
+                "p/q/Hidden.java",
+                "package p.q; public class Hidden {}"));
+        JdkTools.run("jmod", "create", "--class-path", classes.toString(),
+                jmods.resolve("test.jmod").toString());
+    }
+
+    @Test
+    public void testFinder() {
+        JmodFinder finder = new JmodFinder(jmods);
+
+        ModuleReference ref = finder.find("test.jmod").orElseThrow();
+        assertEquals(Set.of("p", "p.q"), ref.descriptor().packages());
+        assertEquals(1, finder.findAll().size());
+        assertTrue(finder.find("no.such.module").isEmpty());
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        try (JmodReader reader = new JmodReader(jmods.resolve("test.jmod"))) {
+            assertEquals(Set.of("module-info.class", "p/Exported.class",
+                            "p/q/Hidden.class"),
+                    Set.copyOf(reader.list().toList()));
+
+            Optional<ByteBuffer> bytes = reader.read("p/Exported.class");
+            assertTrue(bytes.isPresent());
+            assertEquals(0xCAFEBABE, bytes.get().getInt());
+
+            assertTrue(reader.find("p/Exported.class").isPresent());
+            assertTrue(reader.read("p/Missing.class").isEmpty());
+            assertTrue(reader.open("p/Missing.class").isEmpty());
+        }
+    }
+
+    @Test
+    public void testModuleSourceLoadsFromJmod() throws ReflectiveOperationException {
+        Juggler juggler = new Juggler();
+        juggler.addModulePath(jmods.toString());
+        Module m = new Module(juggler.getModulePaths(), "test.jmod");
+        juggler.addSource(m);
+        juggler.configureAllSources();
+
+        List<Class<?>> classes = m.classStream().toList();
+        assertEquals(List.of("p.Exported"),
+                classes.stream().map(Class::getName).toList());
+        assertEquals(42, classes.get(0).getMethod("answer").invoke(null));
+    }
+
+    @Test
+    public void testLoaderClosesReaders() throws IOException {
+        JmodReader reader = new JmodReader(jmods.resolve("test.jmod"));
+        ResolvingURLClassLoader loader = new ResolvingURLClassLoader(new URL[] {});
+        loader.addModuleReader(reader);
+
+        loader.close();
+        assertThrows(IllegalStateException.class,
+                () -> reader.read("p/Exported.class"));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.testsupport.TestJar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModuleTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testExportedPackages() {
+        Set<String> exported = Module.exportedPackages(
+                Object.class.getModule().getDescriptor());
+
+        assertTrue(exported.contains("java.util"));
+        assertFalse(exported.contains("jdk.internal.misc"));    // qualified
+        assertFalse(exported.contains("sun.nio.cs"));           // not at all
+    }
+
+    @Test
+    public void testSearchableOnlyInExportedPackages() {
+        Module m = new Module(List.of("."), "java.sql");
+        m.configure();
+
+        assertTrue(m.isSearchable("java.sql.Connection"));
+        assertTrue(m.isSearchable("java.util.logging.Logger"));  // implied read
+        assertFalse(m.isSearchable("jdk.internal.misc.Unsafe"));
+        assertFalse(m.isSearchable("NoPackage"));
+    }
+
+    @Test
+    public void testAutomaticModuleExportsEverything() throws IOException {
+        new TestJar().classes("foo.bar.Baz").write(dir.resolve("plain-lib.jar"));
+
+        Module m = new Module(List.of(dir.toString()), "plain.lib");
+        m.configure();
+
+        assertEquals(List.of("foo.bar.Baz"), m.classNames().toList());
+        assertTrue(m.isSearchable("foo.bar.Baz"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.source;
+
+import com.angellane.juggle.Juggler;
+import com.angellane.juggle.index.RepositoryIndex;
+import com.angellane.juggle.testsupport.TestJar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositorySourceTest {
+    @TempDir
+    Path dir;
+
+    Path m2;
+    Path gradle;
+    Path indexFile;
+
+    private static void jar(Path file, String... classNames) throws IOException {
+        new TestJar().classes(classNames).write(file);
+    }
+
+    @BeforeEach
+    public void makeCaches() throws IOException {
+        m2 = dir.resolve("m2");
+        gradle = dir.resolve("modules-2");
+        indexFile = dir.resolve("cache/repository.idx");
+
+        jar(m2.resolve("com/example/widgets/1.0/widgets-1.0.jar"), "com.example.OldWidget");
+        jar(m2.resolve("com/example/widgets/1.2/widgets-1.2.jar"), "com.example.Widget");
+        jar(m2.resolve("com/example/widgets/1.2/widgets-1.2-sources.jar"), "com.example.Sources");
+        jar(m2.resolve("org/other/gadgets/2.0-SNAPSHOT/gadgets-2.0-SNAPSHOT.jar"), "org.other.Gadget");
+
+        // A newer widgets in the Gradle cache, and the same gadgets
+        jar(gradle.resolve("files-2.1/com.example/widgets/1.10/abc123/widgets-1.10.jar"),
+                "com.example.Widget", "com.example.NewWidget");
+        jar(gradle.resolve("files-2.1/org.other/gadgets/2.0-SNAPSHOT/def456/gadgets-2.0-SNAPSHOT.jar"),
+                "org.other.Gadget");
+    }
+
+    private RepositorySource source() {
+        RepositorySource source = new RepositorySource(indexFile);
+        source.setJuggler(new Juggler());
+        source.addRoot(m2);
+        source.addRoot(gradle);
+        return source;
+    }
+
+    @Test
+    public void testNewestVersions() {
+        RepositorySource source = source();
+        assertEquals(2, source.configure().size());
+
+        assertEquals(List.of("com.example:widgets:1.10", "org.other:gadgets:2.0-SNAPSHOT"),
+                source.getArtifacts().stream().map(Artifact::toString).toList());
+        assertTrue(source.getArtifacts().get(1).jar().startsWith(m2));     // first root wins
+
+        assertEquals(List.of("com.example.Widget", "com.example.NewWidget", "org.other.Gadget"),
+                source.classNames().toList());
+    }
+
+    @Test
+    public void testIndexIsReused() throws IOException {
+        source().configure();
+        assertTrue(Files.exists(indexFile));
+        assertEquals(2, RepositoryIndex.load(indexFile).size());
+
+        // A listing that didn't come from the JAR proves the index was used
+        RepositoryIndex index = RepositoryIndex.load(indexFile);
+        Path widgets = gradle.resolve("files-2.1/com.example/widgets/1.10/abc123/widgets-1.10.jar");
+        index.put(widgets, Files.size(widgets), Files.getLastModifiedTime(widgets).toMillis(),
+                List.of("com.example.FromIndex"));
+        index.save(indexFile);
+
+        RepositorySource source = source();
+        source.configure();
+        assertEquals(List.of("com.example.FromIndex", "org.other.Gadget"),
+                source.classNames().toList());
+    }
+}
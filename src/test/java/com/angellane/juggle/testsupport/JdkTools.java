@@ -0,0 +1,67 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.testsupport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.spi.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs JDK tools (javac, jmod) for tests.  A test is skipped, rather than
+ * failed, when the tool isn't available -- e.g. when running on a JRE.
+ */
+public class JdkTools {
+    public static void run(String toolName, String... args) {
+        Optional<ToolProvider> tool = ToolProvider.findFirst(toolName);
+        assumeTrue(tool.isPresent(), toolName + " isn't available");
+        assertEquals(0, tool.get().run(System.out, System.err, args));
+    }
+
+    /**
+     * Writes out source files and compiles them.
+     *
+     * @param dir directory to hold the sources (in src) and the compiled
+     *            classes (in classes)
+     * @param sources source text, keyed by path relative to the source root
+     *                (e.g. p/Widget.java)
+     * @return the directory holding the compiled classes
+     */
+    public static Path javac(Path dir, Map<String, String> sources) throws IOException {
+        Path src = dir.resolve("src");
+        Path classes = dir.resolve("classes");
+
+        List<String> args = new ArrayList<>(List.of("-d", classes.toString()));
+        for (Map.Entry<String, String> e : sources.entrySet()) {
+            Path file = src.resolve(e.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, e.getValue());
+            args.add(file.toString());
+        }
+
+        run("javac", args.toArray(String[]::new));
+        return classes;
+    }
+}
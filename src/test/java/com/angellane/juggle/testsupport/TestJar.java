@@ -0,0 +1,124 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.testsupport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Builds JAR files for tests.  Entries are written in the order they're
+ * added; those added without data are empty, which is enough for tests
+ * that only list a JAR's classes.
+ */
+public class TestJar {
+    private record Entry(String name, byte[] data, boolean stored) {}
+
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean multiRelease = false;
+
+    public TestJar multiRelease() {
+        multiRelease = true;
+        return this;
+    }
+
+    /**
+     * Adds an empty entry for each of the named classes.
+     *
+     * @param classNames binary names of classes, e.g. p.Outer$Inner
+     */
+    public TestJar classes(String... classNames) {
+        for (String name : classNames)
+            entry(name.replace('.', '/') + ".class");
+        return this;
+    }
+
+    public TestJar entry(String name) {
+        return entry(name, new byte[0]);
+    }
+
+    public TestJar entry(String name, byte[] data) {
+        entries.add(new Entry(name, data, false));
+        return this;
+    }
+
+    public TestJar entry(String name, Path file) throws IOException {
+        return entry(name, Files.readAllBytes(file));
+    }
+
+    /**
+     * Adds an uncompressed entry, as nested JARs are in a fat JAR.
+     */
+    public TestJar storedEntry(String name, byte[] data) {
+        entries.add(new Entry(name, data, true));
+        return this;
+    }
+
+    /**
+     * Writes the JAR, creating any missing parent directories.
+     *
+     * @param file where to write it
+     * @return the file
+     */
+    public Path write(Path file) throws IOException {
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+        try (OutputStream os = Files.newOutputStream(file)) {
+            write(os);
+        }
+        return file;
+    }
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private void write(OutputStream os) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (multiRelease)
+            manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+
+        try (JarOutputStream out = new JarOutputStream(os, manifest)) {
+            for (Entry entry : entries) {
+                ZipEntry e = new ZipEntry(entry.name());
+                if (entry.stored()) {
+                    CRC32 crc = new CRC32();
+                    crc.update(entry.data());
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(entry.data().length);
+                    e.setCrc(crc.getValue());
+                }
+                out.putNextEntry(e);
+                out.write(entry.data());
+                out.closeEntry();
+            }
+        }
+    }
+}
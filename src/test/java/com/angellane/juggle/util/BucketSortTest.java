@@ -0,0 +1,65 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BucketSortTest {
+    @Test
+    public void testSortsByKeyThenComparator() {
+        List<String> words = List.of("pear", "fig", "kiwi", "apple", "yam", "plum");
+
+        assertEquals(
+                words.stream()
+                        .sorted(Comparator.comparingInt(String::length)
+                                .thenComparing(Comparator.naturalOrder()))
+                        .toList(),
+                BucketSort.sorted(words.stream(), String::length,
+                        Comparator.naturalOrder()).toList());
+    }
+
+    @Test
+    public void testStableWithinBucket() {
+        List<String> words = List.of("pear", "fig", "kiwi", "yam", "plum");
+
+        assertEquals(List.of("fig", "yam", "pear", "kiwi", "plum"),
+                BucketSort.sorted(words.stream(), String::length,
+                        (a, b) -> 0).toList());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(List.of(),
+                BucketSort.sorted(Stream.<String>empty(), String::length,
+                        Comparator.naturalOrder()).toList());
+    }
+
+    @Test
+    public void testNegativeKeyRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BucketSort.sorted(Stream.of(-1), i -> i,
+                        Comparator.naturalOrder()));
+    }
+}
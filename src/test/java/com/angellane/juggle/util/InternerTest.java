@@ -0,0 +1,74 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class InternerTest {
+    @Test
+    public void testEqualValuesShareInstance() {
+        Interner<List<String>> interner = new Interner<>();
+
+        List<String> first  = new ArrayList<>(List.of("a", "b"));
+        List<String> second = new ArrayList<>(List.of("a", "b"));
+
+        assertNotSame(first, second);
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void testDistinctValuesAreKept() {
+        Interner<String> interner = new Interner<>();
+
+        assertEquals("a", interner.intern("a"));
+        assertEquals("b", interner.intern("b"));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void testUnusedValuesAreForgotten() {
+        Interner<List<String>> interner = new Interner<>();
+
+        WeakReference<List<String>> ref =
+                new WeakReference<>(interner.intern(new ArrayList<>(List.of("a"))));
+
+        // System.gc() may do nothing (-XX:+DisableExplicitGC), so make some
+        // garbage too.  Collected entries are removed from the pool a little
+        // later.
+        List<byte[]> garbage = new ArrayList<>();
+        for (int i = 0; i < 200 && (ref.get() != null || interner.size() != 0); ++i) {
+            garbage.add(new byte[1 << 20]);
+            if (garbage.size() > 16)
+                garbage.clear();
+            System.gc();
+        }
+
+        // Nothing guarantees a collection, though
+        assumeTrue(ref.get() == null, "the value wasn't collected");
+        assertEquals(0, interner.size());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonWriterTest {
+    @Test
+    public void testNesting() {
+        StringBuilder sb = new StringBuilder();
+        new JsonWriter(sb)
+                .beginObject()
+                .name("a").value(1)
+                .name("b").beginArray().value("x").value(true).beginObject().endObject().endArray()
+                .name("c").value((String) null)
+                .endObject();
+
+        assertEquals("{\"a\":1,\"b\":[\"x\",true,{}],\"c\":null}", sb.toString());
+    }
+
+    @Test
+    public void testEscaping() {
+        StringBuilder sb = new StringBuilder();
+        JsonWriter.quote(sb, "say \"hi\"\\\n\t\u0001é");
+        assertEquals("\"say \\\"hi\\\"\\\\\\n\\t\\u0001é\"", sb.toString());
+    }
+}
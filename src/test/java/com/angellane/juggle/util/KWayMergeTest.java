@@ -0,0 +1,74 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KWayMergeTest {
+    private static <T> List<T> drain(Iterator<T> it) {
+        List<T> ret = new ArrayList<>();
+        it.forEachRemaining(ret::add);
+        return ret;
+    }
+
+    @Test
+    public void testMergesSortedInputs() {
+        List<Iterator<Integer>> inputs = List.of(
+                List.of(1, 4, 7).iterator(),
+                List.of(2, 5, 8, 9).iterator(),
+                List.of(3, 6).iterator());
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9),
+                drain(KWayMerge.merge(inputs, Comparator.naturalOrder())));
+    }
+
+    @Test
+    public void testTiesTakenFromEarlierInputFirst() {
+        List<Iterator<String>> inputs = List.of(
+                List.of("b1", "c1").iterator(),
+                List.of("a2", "b2").iterator());
+
+        assertEquals(List.of("a2", "b1", "b2", "c1"),
+                drain(KWayMerge.merge(inputs,
+                        Comparator.comparing(s -> s.charAt(0)))));
+    }
+
+    @Test
+    public void testEmptyInputs() {
+        List<Iterator<Integer>> inputs = List.of(
+                List.<Integer>of().iterator(),
+                List.of(1).iterator(),
+                List.<Integer>of().iterator());
+
+        assertEquals(List.of(1),
+                drain(KWayMerge.merge(inputs, Comparator.naturalOrder())));
+
+        Iterator<Integer> none = KWayMerge.merge(List.<Iterator<Integer>>of(),
+                Comparator.naturalOrder());
+        assertFalse(none.hasNext());
+        assertThrows(NoSuchElementException.class, none::next);
+    }
+}
@@ -111,4 +111,23 @@ public class NegatablePatternTest {
         assertTrue(pat.test("Foo"));
         assertFalse(pat.test("bar"));
     }
+
+    @Test
+    public void testRefines() {
+        NegatablePattern index = NegatablePattern.compile("index");
+
+        assertTrue(NegatablePattern.compile("index").refines(index));
+        assertTrue(NegatablePattern.compile("indexOf").refines(index));
+        assertTrue(NegatablePattern.compile("^\\QindexOf\\E$").refines(index));
+        assertFalse(index.refines(NegatablePattern.compile("indexOf")));
+        assertFalse(NegatablePattern.compile("ind.*x").refines(index));
+        assertFalse(NegatablePattern.compile("indexOf").refines(
+                NegatablePattern.compile("^\\Qindex\\E$")));
+        assertFalse(new NegatablePattern("indexOf", false).refines(
+                new NegatablePattern("index", false)));
+
+        NegatablePattern anyCase = NegatablePattern.compile("INDEX", Pattern.CASE_INSENSITIVE);
+        assertTrue(NegatablePattern.compile("lastIndexOf", Pattern.CASE_INSENSITIVE)
+                .refines(anyCase));
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ *  Juggle -- a declarative search tool for Java
+ *
+ *  Copyright 2020,2024 Paul Bennett
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.angellane.juggle.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipArchiveTest {
+    static byte[] zip(boolean stored, String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] data = namesAndContents[i+1].getBytes(StandardCharsets.UTF_8);
+                ZipEntry e = new ZipEntry(namesAndContents[i]);
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(data.length);
+                    e.setCrc(crc.getValue());
+                }
+                out.putNextEntry(e);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static String string(ByteBuffer buf) {
+        byte[] array = new byte[buf.remaining()];
+        buf.get(array);
+        return new String(array, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStoredEntriesAreSlices() throws IOException {
+        ZipArchive zip = new ZipArchive(ByteBuffer.wrap(
+                zip(true, "a/", "", "a/One.txt", "one", "Two.txt", "two")));
+
+        assertEquals(List.of("a/", "a/One.txt", "Two.txt"),
+                zip.entries().stream().map(ZipArchive.Entry::name).toList());
+        assertTrue(zip.entry("a/").orElseThrow().isDirectory());
+
+        ByteBuffer one = zip.contents(zip.entry("a/One.txt").orElseThrow());
+        assertTrue(one.isReadOnly());
+        assertEquals("one", string(one));
+        assertEquals("two", string(zip.contents(zip.entry("Two.txt").orElseThrow())));
+        assertTrue(zip.entry("Three.txt").isEmpty());
+    }
+
+    @Test
+    public void testDeflatedEntries() throws IOException {
+        String text = "juggle ".repeat(1000);
+        ZipArchive zip = new ZipArchive(ByteBuffer.wrap(zip(false, "t.txt", text)));
+
+        ZipArchive.Entry e = zip.entry("t.txt").orElseThrow();
+        assertTrue(e.compressedSize() < e.size());
+        assertEquals(text, string(zip.contents(e)));
+    }
+
+    @Test
+    public void testNestedArchive() throws IOException {
+        byte[] inner = zip(false, "Inner.txt", "inside");
+        ByteArrayOutputStream outer = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(outer)) {
+            CRC32 crc = new CRC32();
+            crc.update(inner);
+            ZipEntry e = new ZipEntry("lib/inner.jar");
+            e.setMethod(ZipEntry.STORED);
+            e.setSize(inner.length);
+            e.setCrc(crc.getValue());
+            out.putNextEntry(e);
+            out.write(inner);
+            out.closeEntry();
+        }
+
+        ZipArchive zip = new ZipArchive(ByteBuffer.wrap(outer.toByteArray()));
+        ZipArchive nested = new ZipArchive(
+                zip.contents(zip.entry("lib/inner.jar").orElseThrow()));
+        assertEquals("inside",
+                string(nested.contents(nested.entry("Inner.txt").orElseThrow())));
+    }
+
+    @Test
+    public void testPrependedData() throws IOException {
+        // e.g. a launch script in front of an executable JAR
+        byte[] prefix = "#!/bin/sh\nexec java -jar \"$0\"\n".getBytes(StandardCharsets.UTF_8);
+        byte[] body = zip(false, "x.txt", "x");
+        ByteBuffer buf = ByteBuffer.allocate(prefix.length + body.length)
+                .put(prefix).put(body).flip();
+
+        ZipArchive zip = new ZipArchive(buf);
+        assertEquals("x", string(zip.contents(zip.entry("x.txt").orElseThrow())));
+    }
+
+    @Test
+    public void testNotAZip() {
+        assertThrows(ZipException.class, () -> new ZipArchive(
+                ByteBuffer.wrap("not a zip file".getBytes(StandardCharsets.UTF_8))));
+    }
+}